@@ -34,6 +34,7 @@ import com.citytechinc.cq.component.dialog.DialogElement;
 import com.citytechinc.cq.component.dialog.Listeners;
 import com.citytechinc.cq.component.dialog.ListenersParameters;
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentFieldException;
+import com.citytechinc.cq.component.dialog.widget.IndexedWidgetRegistry;
 import com.citytechinc.cq.component.dialog.widget.WidgetParameters;
 import com.citytechinc.cq.component.util.ComponentUtil;
 
@@ -59,7 +60,14 @@ public abstract class AbstractWidgetMaker<T extends WidgetParameters> implements
 	public final DialogElement make() throws InvalidComponentFieldException, NotFoundException, ClassNotFoundException,
 		SecurityException, CannotCompileException, NoSuchFieldException, InstantiationException,
 		IllegalAccessException, IllegalArgumentException, InvocationTargetException, NoSuchMethodException {
-		Class<T> clazz = (Class<T>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+		Class<T> clazz;
+		if (this.parameters.getWidgetRegistry() instanceof IndexedWidgetRegistry) {
+			clazz =
+				(Class<T>) ((IndexedWidgetRegistry) this.parameters.getWidgetRegistry())
+					.getWidgetParametersClass(getClass());
+		} else {
+			clazz = (Class<T>) getParametersClass(getClass());
+		}
 		T parameters = clazz.newInstance();
 		parameters.setName(getNameForField());
 		parameters.setFieldName(getFieldNameForField());
@@ -79,6 +87,17 @@ public abstract class AbstractWidgetMaker<T extends WidgetParameters> implements
 		InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException,
 		NoSuchMethodException;
 
+	/**
+	 * Determines the Widget Parameters class a Widget Maker populates from the
+	 * type argument of its AbstractWidgetMaker superclass.
+	 *
+	 * @param makerClass A direct subclass of AbstractWidgetMaker
+	 * @return The Widget Parameters class
+	 */
+	public static Class<?> getParametersClass(Class<?> makerClass) {
+		return (Class<?>) ((ParameterizedType) makerClass.getGenericSuperclass()).getActualTypeArguments()[0];
+	}
+
 	/**
 	 * <p>
 	 * Determines and returns the name for the dialog field. The name is the
@@ -31,6 +31,7 @@ public class WidgetMakerParameters {
 
 	private DialogFieldConfig dialogFieldConfig;
 	private Class<?> containingClass;
+	private String containingClassName;
 	private ClassLoader classLoader;
 	private ClassPool classPool;
 	private WidgetRegistry widgetRegistry;
@@ -54,8 +55,31 @@ public class WidgetMakerParameters {
 		ClassPool classPool, WidgetRegistry widgetRegistry, String xtype, boolean useDotSlashInName)
 		throws InvalidComponentFieldException, NotFoundException {
 
-		this.dialogFieldConfig = dialogField;
+		this(dialogField, containingClass != null ? containingClass.getName() : null, classLoader, classPool,
+			widgetRegistry, xtype, useDotSlashInName);
 		this.containingClass = containingClass;
+	}
+
+	/**
+	 * Constructs parameters which only know the name of the containing Class.
+	 * The Class itself is not loaded until a maker asks for it.
+	 *
+	 * @param dialogField
+	 * @param containingClassName
+	 * @param classLoader
+	 * @param classPool
+	 * @param widgetRegistry
+	 * @param xtype
+	 * @param useDotSlashInName
+	 * @throws InvalidComponentFieldException
+	 * @throws NotFoundException
+	 */
+	public WidgetMakerParameters(DialogFieldConfig dialogField, String containingClassName, ClassLoader classLoader,
+		ClassPool classPool, WidgetRegistry widgetRegistry, String xtype, boolean useDotSlashInName)
+		throws InvalidComponentFieldException, NotFoundException {
+
+		this.dialogFieldConfig = dialogField;
+		this.containingClassName = containingClassName;
 		this.classLoader = classLoader;
 		this.classPool = classPool;
 		this.widgetRegistry = widgetRegistry;
@@ -88,10 +112,19 @@ public class WidgetMakerParameters {
 	}
 
 	/**
+	 * Loads the containing Class through the ClassLoader the first time it is
+	 * requested if only its name is known.
 	 *
 	 * @return The Containing Class of the Widget
 	 */
 	public Class<?> getContainingClass() {
+		if (containingClass == null && containingClassName != null) {
+			try {
+				containingClass = classLoader.loadClass(containingClassName);
+			} catch (ClassNotFoundException e) {
+				throw new IllegalStateException("Unable to load containing class " + containingClassName, e);
+			}
+		}
 		return containingClass;
 	}
 
@@ -101,6 +134,24 @@ public class WidgetMakerParameters {
 	 */
 	public void setContainingClass(Class<?> containingClass) {
 		this.containingClass = containingClass;
+		this.containingClassName = containingClass != null ? containingClass.getName() : null;
+	}
+
+	/**
+	 *
+	 * @return The name of the Containing Class of the Widget
+	 */
+	public String getContainingClassName() {
+		return containingClassName;
+	}
+
+	/**
+	 *
+	 * @param containingClassName
+	 */
+	public void setContainingClassName(String containingClassName) {
+		this.containingClassName = containingClassName;
+		this.containingClass = null;
 	}
 
 	/**
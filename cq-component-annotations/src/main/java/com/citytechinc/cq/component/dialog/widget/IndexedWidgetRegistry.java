@@ -0,0 +1,73 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.dialog.widget;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+
+import com.citytechinc.cq.component.dialog.maker.AbstractWidgetMaker;
+import com.citytechinc.cq.component.dialog.maker.WidgetMaker;
+import com.citytechinc.cq.component.util.WidgetConfigHolder;
+
+/**
+ * An optional extension of the {@link WidgetRegistry} offering indexed
+ * lookups of Widget definitions and cached lookups of Widget Maker classes.
+ * The Widget factories and makers use these lookups when the registry
+ * provides them and otherwise fall back to the methods of the
+ * {@link WidgetRegistry}, so existing registry implementations keep working.
+ */
+public interface IndexedWidgetRegistry extends WidgetRegistry {
+
+	/**
+	 *
+	 * @param annotationName The fully qualified name of a Widget annotation
+	 * @return The Widget Configuration associated with the named annotation or
+	 *         null if the annotation is not a known Widget annotation
+	 */
+	public WidgetConfigHolder getWidgetForAnnotationName(String annotationName);
+
+	/**
+	 *
+	 * @param xtype
+	 * @return The Widget Configurations associated with the specified xtype,
+	 *         ordered from highest to lowest ranking. The list is empty if no
+	 *         Widget is associated with the xtype.
+	 */
+	public List<WidgetConfigHolder> getWidgetsForXtype(String xtype);
+
+	/**
+	 * Widget Maker constructors are looked up once per Widget Maker class and
+	 * reused for every field the Widget Maker is used for.
+	 *
+	 * @param makerClass
+	 * @return The constructor of the Widget Maker class which takes the
+	 *         WidgetMakerParameters
+	 * @throws NoSuchMethodException
+	 */
+	public Constructor<? extends WidgetMaker> getWidgetMakerConstructor(Class<? extends WidgetMaker> makerClass)
+		throws NoSuchMethodException;
+
+	/**
+	 * The Widget Parameters class is determined once per Widget Maker class
+	 * and reused for every field the Widget Maker is used for.
+	 *
+	 * @param makerClass
+	 * @return The Widget Parameters class populated by the Widget Maker class
+	 * @see AbstractWidgetMaker#getParametersClass(Class)
+	 */
+	public Class<?> getWidgetParametersClass(Class<? extends WidgetMaker> makerClass);
+
+}
@@ -0,0 +1,100 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javassist.CtClass;
+import javassist.CtMember;
+
+import com.citytechinc.cq.component.annotations.Component;
+import com.citytechinc.cq.component.annotations.editconfig.InPlaceEditorConfig;
+import com.citytechinc.cq.component.dialog.DialogFieldConfig;
+
+/**
+ * The resolved view of a single Component class. A ComponentModel is built
+ * once per Component per build and is shared by all of the generators, so the
+ * Component's members and their Dialog Field configurations are only walked a
+ * single time.
+ */
+public class ComponentModel {
+	private final CtClass componentClass;
+	private final Component componentAnnotation;
+	private final List<CtMember> members;
+	private final List<DialogFieldConfig> dialogFieldConfigs;
+	private final List<DialogFieldConfig> touchUIDialogFieldConfigs;
+	private final List<InPlaceEditorConfig> inPlaceEditorConfigs;
+
+	/**
+	 *
+	 * @param componentClass
+	 * @param componentAnnotation
+	 * @param members The fields and methods of the Component, including those
+	 *            inherited
+	 * @param dialogFieldConfigs The merged Dialog Field configurations used
+	 *            for the Classic UI dialog
+	 * @param touchUIDialogFieldConfigs The merged Dialog Field configurations
+	 *            used for the Touch UI dialog
+	 * @param inPlaceEditorConfigs The In Place Editor configurations used for
+	 *            the edit config
+	 */
+	public ComponentModel(CtClass componentClass, Component componentAnnotation, List<CtMember> members,
+		List<DialogFieldConfig> dialogFieldConfigs, List<DialogFieldConfig> touchUIDialogFieldConfigs,
+		List<InPlaceEditorConfig> inPlaceEditorConfigs) {
+		this.componentClass = componentClass;
+		this.componentAnnotation = componentAnnotation;
+		this.members = Collections.unmodifiableList(new ArrayList<CtMember>(members));
+		this.dialogFieldConfigs = Collections.unmodifiableList(new ArrayList<DialogFieldConfig>(dialogFieldConfigs));
+		this.touchUIDialogFieldConfigs =
+			Collections.unmodifiableList(new ArrayList<DialogFieldConfig>(touchUIDialogFieldConfigs));
+		this.inPlaceEditorConfigs =
+			Collections.unmodifiableList(new ArrayList<InPlaceEditorConfig>(inPlaceEditorConfigs));
+	}
+
+	public CtClass getComponentClass() {
+		return componentClass;
+	}
+
+	public Component getComponentAnnotation() {
+		return componentAnnotation;
+	}
+
+	public List<CtMember> getMembers() {
+		return members;
+	}
+
+	public List<DialogFieldConfig> getDialogFieldConfigs() {
+		return dialogFieldConfigs;
+	}
+
+	public boolean hasDialogFieldConfigs() {
+		return !dialogFieldConfigs.isEmpty();
+	}
+
+	public List<DialogFieldConfig> getTouchUIDialogFieldConfigs() {
+		return touchUIDialogFieldConfigs;
+	}
+
+	public boolean hasTouchUIDialogFieldConfigs() {
+		return !touchUIDialogFieldConfigs.isEmpty();
+	}
+
+	public List<InPlaceEditorConfig> getInPlaceEditorConfigs() {
+		return inPlaceEditorConfigs;
+	}
+}
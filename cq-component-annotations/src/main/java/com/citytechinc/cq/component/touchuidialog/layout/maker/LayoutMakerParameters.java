@@ -18,11 +18,13 @@ package com.citytechinc.cq.component.touchuidialog.layout.maker;
 import javassist.ClassPool;
 import javassist.CtClass;
 
+import com.citytechinc.cq.component.model.ComponentModel;
 import com.citytechinc.cq.component.touchuidialog.widget.registry.TouchUIWidgetRegistry;
 
 public class LayoutMakerParameters {
 
 	private CtClass componentClass;
+	private ComponentModel componentModel;
 	private ClassLoader classLoader;
 	private ClassPool classPool;
 	private TouchUIWidgetRegistry widgetRegistry;
@@ -35,6 +37,14 @@ public class LayoutMakerParameters {
 		this.componentClass = componentClass;
 	}
 
+	public ComponentModel getComponentModel() {
+		return componentModel;
+	}
+
+	public void setComponentModel(ComponentModel componentModel) {
+		this.componentModel = componentModel;
+	}
+
 	public ClassLoader getClassLoader() {
 		return classLoader;
 	}
@@ -31,6 +31,7 @@ import com.citytechinc.cq.component.dialog.exception.InvalidComponentFieldExcept
 import com.citytechinc.cq.component.touchuidialog.TouchUIDialogElement;
 import com.citytechinc.cq.component.touchuidialog.exceptions.TouchUIDialogGenerationException;
 import com.citytechinc.cq.component.touchuidialog.widget.TouchUIWidgetParameters;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.IndexedTouchUIWidgetRegistry;
 import com.citytechinc.cq.component.util.ComponentUtil;
 
 public abstract class AbstractTouchUIWidgetMaker<T extends TouchUIWidgetParameters> implements TouchUIWidgetMaker {
@@ -44,12 +45,14 @@ public abstract class AbstractTouchUIWidgetMaker<T extends TouchUIWidgetParamete
 	@SuppressWarnings("unchecked")
 	public final TouchUIDialogElement make() throws ClassNotFoundException, InvalidComponentFieldException,
 		TouchUIDialogGenerationException, IllegalAccessException, InstantiationException {
-		Class<?> clazz = getClass();
-		while (clazz != null && !AbstractTouchUIWidgetMaker.class.equals(clazz.getSuperclass())) {
-			clazz = clazz.getSuperclass();
+		Class<T> parameterClass;
+		if (this.parameters.getWidgetRegistry() instanceof IndexedTouchUIWidgetRegistry) {
+			parameterClass =
+				(Class<T>) ((IndexedTouchUIWidgetRegistry) this.parameters.getWidgetRegistry())
+					.getWidgetParametersClass(getClass());
+		} else {
+			parameterClass = (Class<T>) getParametersClass(getClass());
 		}
-		Class<T> parameterClass =
-			(Class<T>) ((ParameterizedType) clazz.getGenericSuperclass()).getActualTypeArguments()[0];
 		T parameters = parameterClass.newInstance();
 
 		parameters.setFieldName(getFieldNameForField());
@@ -74,6 +77,22 @@ public abstract class AbstractTouchUIWidgetMaker<T extends TouchUIWidgetParamete
 		InvalidComponentFieldException, TouchUIDialogGenerationException, IllegalAccessException,
 		InstantiationException;
 
+	/**
+	 * Determines the Widget Parameters class a Widget Maker populates from the
+	 * type argument given to AbstractTouchUIWidgetMaker within the Widget
+	 * Maker's class hierarchy.
+	 *
+	 * @param makerClass A subclass of AbstractTouchUIWidgetMaker
+	 * @return The Widget Parameters class
+	 */
+	public static Class<?> getParametersClass(Class<?> makerClass) {
+		Class<?> clazz = makerClass;
+		while (clazz != null && !AbstractTouchUIWidgetMaker.class.equals(clazz.getSuperclass())) {
+			clazz = clazz.getSuperclass();
+		}
+		return (Class<?>) ((ParameterizedType) clazz.getGenericSuperclass()).getActualTypeArguments()[0];
+	}
+
 	/**
 	 * <p>
 	 * Determines and returns the name for the dialog field. The name is the
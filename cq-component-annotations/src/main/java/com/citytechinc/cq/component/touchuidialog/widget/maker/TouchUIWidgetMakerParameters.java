@@ -25,6 +25,7 @@ public class TouchUIWidgetMakerParameters {
 
 	private DialogFieldConfig dialogFieldConfig;
 	private Class<?> containingClass;
+	private String containingClassName;
 	private ClassLoader classLoader;
 	private ClassPool classPool;
 	private String resourceType;
@@ -39,12 +40,35 @@ public class TouchUIWidgetMakerParameters {
 		this.dialogFieldConfig = dialogFieldConfig;
 	}
 
+	/**
+	 * Loads the containing Class through the ClassLoader the first time it is
+	 * requested if only its name is known.
+	 *
+	 * @return The Containing Class of the Widget
+	 */
 	public Class<?> getContainingClass() {
+		if (containingClass == null && containingClassName != null) {
+			try {
+				containingClass = classLoader.loadClass(containingClassName);
+			} catch (ClassNotFoundException e) {
+				throw new IllegalStateException("Unable to load containing class " + containingClassName, e);
+			}
+		}
 		return containingClass;
 	}
 
 	public void setContainingClass(Class<?> containingClass) {
 		this.containingClass = containingClass;
+		this.containingClassName = containingClass != null ? containingClass.getName() : null;
+	}
+
+	public String getContainingClassName() {
+		return containingClassName;
+	}
+
+	public void setContainingClassName(String containingClassName) {
+		this.containingClassName = containingClassName;
+		this.containingClass = null;
 	}
 
 	public ClassLoader getClassLoader() {
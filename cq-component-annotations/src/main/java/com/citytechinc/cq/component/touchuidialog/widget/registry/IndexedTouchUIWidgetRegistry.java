@@ -0,0 +1,74 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.touchuidialog.widget.registry;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+
+import com.citytechinc.cq.component.touchuidialog.widget.maker.AbstractTouchUIWidgetMaker;
+import com.citytechinc.cq.component.touchuidialog.widget.maker.TouchUIWidgetMaker;
+import com.citytechinc.cq.component.util.TouchUIWidgetConfigHolder;
+
+/**
+ * An optional extension of the {@link TouchUIWidgetRegistry} offering indexed
+ * lookups of Widget definitions and cached lookups of Widget Maker classes.
+ * The Touch UI Widget factory and makers use these lookups when the registry
+ * provides them and otherwise fall back to the methods of the
+ * {@link TouchUIWidgetRegistry}, so existing registry
+ * implementations keep working.
+ */
+public interface IndexedTouchUIWidgetRegistry extends TouchUIWidgetRegistry {
+
+	/**
+	 *
+	 * @param annotationName The fully qualified name of a Widget annotation
+	 * @return The Widget Configuration associated with the named annotation or
+	 *         null if the annotation is not a known Widget annotation
+	 */
+	public TouchUIWidgetConfigHolder getWidgetForAnnotationName(String annotationName);
+
+	/**
+	 *
+	 * @param resourceType
+	 * @return The Widget Configurations associated with the specified
+	 *         resourceType, ordered from highest to lowest ranking. The list
+	 *         is empty if no Widget is associated with the resourceType.
+	 */
+	public List<TouchUIWidgetConfigHolder> getWidgetsForResourceType(String resourceType);
+
+	/**
+	 * Widget Maker constructors are looked up once per Widget Maker class and
+	 * reused for every field the Widget Maker is used for.
+	 *
+	 * @param makerClass
+	 * @return The constructor of the Widget Maker class which takes the
+	 *         TouchUIWidgetMakerParameters
+	 * @throws NoSuchMethodException
+	 */
+	public Constructor<? extends TouchUIWidgetMaker> getWidgetMakerConstructor(
+		Class<? extends TouchUIWidgetMaker> makerClass) throws NoSuchMethodException;
+
+	/**
+	 * The Widget Parameters class is determined once per Widget Maker class
+	 * and reused for every field the Widget Maker is used for.
+	 *
+	 * @param makerClass
+	 * @return The Widget Parameters class populated by the Widget Maker class
+	 * @see AbstractTouchUIWidgetMaker#getParametersClass(Class)
+	 */
+	public Class<?> getWidgetParametersClass(Class<? extends TouchUIWidgetMaker> makerClass);
+
+}
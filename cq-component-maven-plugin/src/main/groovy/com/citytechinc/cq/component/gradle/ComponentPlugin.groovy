@@ -22,5 +22,17 @@ class ComponentPlugin implements Plugin<Project>{
 	public void apply(Project project) {
 		project.extensions.create("componentPlugin", ComponentPluginExtension)
 		def component=project.task('generateComponents',type: GenerateComponentsTask)
+
+		//Publish the archive with the generated files rather than leaving it unused next to the distribution
+		project.afterEvaluate {
+			if (project.configurations.findByName('archives') != null) {
+				project.artifacts.add('archives', component.componentArchiveFile) {
+					name = project.name
+					classifier = 'components'
+					type = 'zip'
+					builtBy component
+				}
+			}
+		}
 	}
 }
@@ -15,6 +15,7 @@
  */
 package com.citytechinc.cq.component.gradle
 
+import com.citytechinc.cq.component.maven.util.ArchiveCompression
 
 
 class ComponentPluginExtension {
@@ -24,5 +25,9 @@ class ComponentPluginExtension {
 	String transformerName="camel-case"
 	boolean generateTouchUiDialogs=true
 	boolean generateClassicUiDialogs=true
+	boolean writeExplodedComponentFiles=true
+	boolean parallelCompression=false
+	String compression=ArchiveCompression.KEEP
+	List<String> additionalFeatures=[]
 	//TODO: Implement excludedDependences
 }
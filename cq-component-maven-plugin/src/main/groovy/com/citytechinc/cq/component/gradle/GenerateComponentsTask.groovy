@@ -20,45 +20,166 @@ import javassist.CtClass
 
 import org.gradle.api.DefaultTask
 import org.gradle.api.GradleException
+import org.gradle.api.file.FileCollection
+import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.InputFile
+import org.gradle.api.tasks.InputFiles
+import org.gradle.api.tasks.Optional
+import org.gradle.api.tasks.OutputFile
 import org.gradle.api.tasks.TaskAction
-import org.reflections.Reflections
 
 import com.citytechinc.cq.component.dialog.ComponentNameTransformer
 import com.citytechinc.cq.component.dialog.widget.WidgetRegistry
 import com.citytechinc.cq.component.dialog.widget.impl.DefaultWidgetRegistry
+import com.citytechinc.cq.component.editconfig.registry.DefaultInPlaceEditorRegistry
+import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry
+import com.citytechinc.cq.component.htl.util.HtlUtil
+import com.citytechinc.cq.component.maven.util.AnnotationIndex
+import com.citytechinc.cq.component.maven.util.AnnotationIndexCache
+import com.citytechinc.cq.component.maven.util.AnnotationIndexUtil
+import com.citytechinc.cq.component.maven.util.ArchiveCompression
 import com.citytechinc.cq.component.maven.util.ComponentMojoUtil
+import com.citytechinc.cq.component.maven.util.ComponentOutputManifest
 import com.citytechinc.cq.component.maven.util.LogSingleton
+import com.citytechinc.cq.component.touchuidialog.widget.registry.DefaultTouchUIWidgetRegistry
+import com.citytechinc.cq.component.touchuidialog.widget.registry.TouchUIWidgetRegistry
 
+/**
+ * Writes a copy of the project's distribution archive with the files
+ * generated for the project's Components injected, the Gradle counterpart of
+ * the component goal. The distribution archive itself is left untouched.
+ * <p>
+ * The distribution archive, the runtime classpath, the plugin settings and
+ * the HTL templates are declared as inputs and the component archive and the
+ * output manifest as outputs, so the task is skipped as up to date when none
+ * of them changed. The exploded component files are not declared, the output
+ * manifest keeping track of them instead. When the task does run, only the
+ * Components whose inputs changed are generated again, the files of the
+ * others being reused from the build state of the previous run.
+ * <p>
+ * The component archive is added to the archives configuration with the
+ * components classifier by {@link ComponentPlugin}, so it is published along
+ * with the distribution archive.
+ */
 class GenerateComponentsTask extends DefaultTask{
 
+	@InputFiles
+	FileCollection getClasspath() {
+		project.sourceSets.main.runtimeClasspath
+	}
+
+	@InputFiles
+	FileCollection getTemplates() {
+		project.files(HtlUtil.getTemplateDirectory(project.buildDir))
+	}
+
+	@Input
+	@Optional
+	String getComponentPathBase() {
+		project.componentPlugin.componentPathBase
+	}
+
+	@Input
+	String getComponentPathSuffix() {
+		project.componentPlugin.componentPathSuffix
+	}
+
+	@Input
+	String getDefaultComponentGroup() {
+		project.componentPlugin.defaultComponentGroup
+	}
+
+	@Input
+	String getTransformerName() {
+		project.componentPlugin.transformerName
+	}
+
+	@Input
+	boolean isGenerateTouchUiDialogs() {
+		project.componentPlugin.generateTouchUiDialogs
+	}
+
+	@Input
+	boolean isGenerateClassicUiDialogs() {
+		project.componentPlugin.generateClassicUiDialogs
+	}
+
+	@Input
+	boolean isWriteExplodedComponentFiles() {
+		project.componentPlugin.writeExplodedComponentFiles
+	}
+
+	/**
+	 * Not an input, as compressing in parallel does not change the archive
+	 * written.
+	 */
+	boolean isParallelCompression() {
+		project.componentPlugin.parallelCompression
+	}
+
+	@Input
+	String getCompression() {
+		project.componentPlugin.compression
+	}
+
+	@Input
+	List<String> getAdditionalFeatures() {
+		project.componentPlugin.additionalFeatures
+	}
+
+	@InputFile
+	File getArchiveFile() {
+		getArchiveFileForProject()
+	}
+
+	@OutputFile
+	File getComponentArchiveFile() {
+		getComponentArchiveFileForProject()
+	}
+
+	@OutputFile
+	File getOutputManifestFile() {
+		new File(project.buildDir, ComponentOutputManifest.MANIFEST_FILE_NAME)
+	}
+
 	@TaskAction
 	def generateComponents(){
 		LogSingleton.instance.logger=new GradleMavenLog(this.logger)
+
 		def urls=[]
-		urls.addAll(project.sourceSets.main.runtimeClasspath.collect { it.toURI().toURL() }.flatten())
+		urls.addAll(classpath.collect { it.toURI().toURL() }.flatten())
 		ClassLoader classLoader = new URLClassLoader(urls as URL[],this.class.classLoader)
 
 		ClassPool classPool = ComponentMojoUtil.getClassPool(classLoader)
 
-		Reflections reflections = ComponentMojoUtil.getReflections(classLoader)
+		AnnotationIndex annotationIndex = AnnotationIndexUtil.buildAnnotationIndex(urls + [ComponentMojoUtil.pluginClasspathUrl],
+				new AnnotationIndexCache(new File(project.buildDir, "cq-component-cache")))
 
 		//TODO: Implement excludedDependences
-		List<CtClass> classList = ComponentMojoUtil.getAllComponentAnnotations(classPool, reflections, [] as Set)
+		List<CtClass> classList = ComponentMojoUtil.getAllComponentAnnotations(classPool, annotationIndex, [] as Set)
 
-		WidgetRegistry widgetRegistry = new DefaultWidgetRegistry(classPool, classLoader, reflections)
+		WidgetRegistry widgetRegistry = new DefaultWidgetRegistry(classPool, classLoader, annotationIndex,
+				additionalFeatures)
 
-		Map<String, ComponentNameTransformer> transformers = ComponentMojoUtil.getAllTransformers(classPool,
-				reflections)
+		TouchUIWidgetRegistry touchUIWidgetRegistry = new DefaultTouchUIWidgetRegistry(classPool, classLoader,
+				annotationIndex, additionalFeatures)
 
-		ComponentNameTransformer transformer = transformers.get(project.componentPlugin.transformerName)
+		InPlaceEditorRegistry inPlaceEditorRegistry = new DefaultInPlaceEditorRegistry(classPool, classLoader,
+				annotationIndex)
+
+		ComponentNameTransformer transformer = ComponentMojoUtil.getTransformer(classPool, annotationIndex,
+				transformerName)
 
 		if (transformer == null) {
 			throw new GradleException("The configured transformer wasn't found")
 		}
 
-		ComponentMojoUtil.buildArchiveFileForProjectAndClassList(classList, widgetRegistry, classLoader, classPool,
-				project.buildDir, project.componentPlugin.componentPathBase, project.componentPlugin.componentPathSuffix,
-				project.componentPlugin.defaultComponentGroup, getArchiveFileForProject(), getTempArchiveFileForProject(), transformer, componentPlugin.generateTouchUiDialogs, componentPlugin.generateClassicUiDialogs)
+		ComponentMojoUtil.buildArchiveFileForProjectAndClassList(classList, widgetRegistry, touchUIWidgetRegistry,
+				inPlaceEditorRegistry, classLoader, classPool, project.buildDir, componentPathBase,
+				componentPathSuffix, defaultComponentGroup, getArchiveFileForProject(),
+				getTempArchiveFileForProject(), getComponentArchiveFileForProject(), transformer,
+				generateTouchUiDialogs, generateClassicUiDialogs, writeExplodedComponentFiles, parallelCompression,
+				ArchiveCompression.forName(compression))
 	}
 
 	def File getArchiveFileForProject() {
@@ -69,6 +190,14 @@ class GenerateComponentsTask extends DefaultTask{
 		return new File(buildDirectory, zipFileName)
 	}
 
+	def File getComponentArchiveFileForProject() {
+		File buildDirectory = new File(project.buildDir,"distributions")
+
+		String zipFileName = project.name + "-" + project.version + "-components.zip"
+
+		return new File(buildDirectory, zipFileName)
+	}
+
 	def File getTempArchiveFileForProject() {
 
 		String zipFileName = project.name + "-" + project.version + "-temp.zip"
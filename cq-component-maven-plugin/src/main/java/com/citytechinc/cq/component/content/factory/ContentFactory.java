@@ -31,6 +31,7 @@ import com.citytechinc.cq.component.content.ContentParameters;
 import com.citytechinc.cq.component.content.htmltag.HtmlTag;
 import com.citytechinc.cq.component.content.htmltag.HtmlTagParameters;
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentClassException;
+import com.citytechinc.cq.component.model.ComponentModel;
 import com.citytechinc.cq.component.xml.NameSpacedAttribute;
 import com.citytechinc.cq.component.xml.XmlElement;
 import com.google.common.collect.Lists;
@@ -40,10 +41,11 @@ public class ContentFactory {
 	private ContentFactory() {
 	}
 
-	public static Content make(CtClass componentClass, String defaultGroup) throws InvalidComponentClassException,
-		ClassNotFoundException {
+	public static Content make(ComponentModel componentModel, String defaultGroup)
+		throws InvalidComponentClassException, ClassNotFoundException {
 
-		Component componentAnnotation = (Component) componentClass.getAnnotation(Component.class);
+		CtClass componentClass = componentModel.getComponentClass();
+		Component componentAnnotation = componentModel.getComponentAnnotation();
 
 		if (componentAnnotation == null) {
 			throw new InvalidComponentClassException();
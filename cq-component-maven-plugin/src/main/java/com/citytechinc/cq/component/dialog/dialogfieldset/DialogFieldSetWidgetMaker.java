@@ -43,6 +43,7 @@ import com.citytechinc.cq.component.dialog.maker.WidgetMakerParameters;
 import com.citytechinc.cq.component.dialog.util.DialogUtil;
 import com.citytechinc.cq.component.dialog.widgetcollection.WidgetCollection;
 import com.citytechinc.cq.component.dialog.widgetcollection.WidgetCollectionParameters;
+import com.citytechinc.cq.component.maven.util.ComponentDependencyTracker;
 import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
 
 public class DialogFieldSetWidgetMaker extends AbstractWidgetMaker<DialogFieldSetWidgetParameters> {
@@ -82,6 +83,8 @@ public class DialogFieldSetWidgetMaker extends AbstractWidgetMaker<DialogFieldSe
 		CannotCompileException, NoSuchFieldException, InstantiationException, IllegalAccessException,
 		IllegalArgumentException, InvocationTargetException, NoSuchMethodException {
 
+		ComponentDependencyTracker.recordHierarchy(getCtType());
+
 		List<CtMember> fieldsAndMethods = new ArrayList<CtMember>();
 
 		fieldsAndMethods.addAll(ComponentMojoUtil.collectFields(getCtType()));
@@ -106,13 +109,12 @@ public class DialogFieldSetWidgetMaker extends AbstractWidgetMaker<DialogFieldSe
 				}
 
 				if (dialogFieldConfig != null) {
-					Class<?> fieldClass = parameters.getClassLoader().loadClass(member.getDeclaringClass().getName());
-
 					double ranking = dialogFieldConfig.getRanking();
 
 					WidgetMakerParameters curFieldMember =
-						new WidgetMakerParameters(dialogFieldConfig, fieldClass, parameters.getClassLoader(),
-							parameters.getClassPool(), parameters.getWidgetRegistry(), null, true);
+						new WidgetMakerParameters(dialogFieldConfig, member.getDeclaringClass().getName(),
+							parameters.getClassLoader(), parameters.getClassPool(), parameters.getWidgetRegistry(), null,
+							true);
 
 					DialogElement builtFieldWidget = WidgetFactory.make(curFieldMember, -1);
 					if (builtFieldWidget != null) {
@@ -23,15 +23,11 @@ import java.util.List;
 import javassist.CannotCompileException;
 import javassist.ClassPool;
 import javassist.CtClass;
-import javassist.CtMember;
-import javassist.CtMethod;
 import javassist.NotFoundException;
 
 import org.codehaus.plexus.util.StringUtils;
 
 import com.citytechinc.cq.component.annotations.Component;
-import com.citytechinc.cq.component.annotations.DialogField;
-import com.citytechinc.cq.component.annotations.IgnoreDialogField;
 import com.citytechinc.cq.component.annotations.Listener;
 import com.citytechinc.cq.component.dialog.Dialog;
 import com.citytechinc.cq.component.dialog.DialogElement;
@@ -47,12 +43,11 @@ import com.citytechinc.cq.component.dialog.exception.InvalidComponentFieldExcept
 import com.citytechinc.cq.component.dialog.maker.WidgetMakerParameters;
 import com.citytechinc.cq.component.dialog.tab.Tab;
 import com.citytechinc.cq.component.dialog.tab.TabParameters;
-import com.citytechinc.cq.component.dialog.util.DialogUtil;
 import com.citytechinc.cq.component.dialog.widget.WidgetRegistry;
 import com.citytechinc.cq.component.dialog.widgetcollection.WidgetCollection;
 import com.citytechinc.cq.component.dialog.widgetcollection.WidgetCollectionParameters;
-import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
 import com.citytechinc.cq.component.maven.util.LogSingleton;
+import com.citytechinc.cq.component.model.ComponentModel;
 
 public class DialogFactory {
 
@@ -61,13 +56,14 @@ public class DialogFactory {
 	private DialogFactory() {
 	}
 
-	public static Dialog make(CtClass componentClass, WidgetRegistry widgetRegistry, ClassLoader classLoader,
+	public static Dialog make(ComponentModel componentModel, WidgetRegistry widgetRegistry, ClassLoader classLoader,
 		ClassPool classPool) throws InvalidComponentClassException, InvalidComponentFieldException,
 		ClassNotFoundException, CannotCompileException, NotFoundException, SecurityException, NoSuchFieldException,
 		InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException,
 		NoSuchMethodException {
 
-		Component componentAnnotation = (Component) componentClass.getAnnotation(Component.class);
+		CtClass componentClass = componentModel.getComponentClass();
+		Component componentAnnotation = componentModel.getComponentAnnotation();
 
 		if (componentAnnotation.suppressClassicUIDialog()) {
 			return null;
@@ -119,47 +115,26 @@ public class DialogFactory {
 				}
 			}
 		}
-		List<CtMember> fieldsAndMethods = new ArrayList<CtMember>();
-		fieldsAndMethods.addAll(ComponentMojoUtil.collectFields(componentClass));
-		fieldsAndMethods.addAll(ComponentMojoUtil.collectMethods(componentClass));
-
-		// Load the true class
-		Class<?> trueComponentClass = classLoader.loadClass(componentClass.getName());
-
 		/*
-		 * Iterate through all fields establishing proper widgets for each
+		 * Iterate through all dialog fields establishing proper widgets for each
 		 */
-		for (CtMember member : fieldsAndMethods) {
-			if (!member.hasAnnotation(IgnoreDialogField.class)) {
-				DialogFieldConfig dialogFieldConfig = null;
-				if (member instanceof CtMethod) {
-					dialogFieldConfig = DialogUtil.getDialogFieldFromSuperClasses((CtMethod) member);
-				} else {
-					if (member.hasAnnotation(DialogField.class)) {
-						dialogFieldConfig =
-							new DialogFieldConfig((DialogField) member.getAnnotation(DialogField.class), member);
-					}
-				}
+		for (DialogFieldConfig dialogFieldConfig : componentModel.getDialogFieldConfigs()) {
+			WidgetMakerParameters parameters =
+				new WidgetMakerParameters(dialogFieldConfig, componentClass.getName(), classLoader, classPool,
+					widgetRegistry, null, true);
 
-				if (dialogFieldConfig != null) {
-					WidgetMakerParameters parameters =
-						new WidgetMakerParameters(dialogFieldConfig, trueComponentClass, classLoader, classPool,
-							widgetRegistry, null, true);
+			DialogElement builtFieldWidget = WidgetFactory.make(parameters, -1);
+			if (builtFieldWidget != null) {
+				builtFieldWidget.setRanking(dialogFieldConfig.getRanking());
 
-					DialogElement builtFieldWidget = WidgetFactory.make(parameters, -1);
-					if (builtFieldWidget != null) {
-						builtFieldWidget.setRanking(dialogFieldConfig.getRanking());
+				int tabIndex = dialogFieldConfig.getTab();
 
-						int tabIndex = dialogFieldConfig.getTab();
-
-						if (tabIndex < 1 || tabIndex > tabsList.size()) {
-							throw new InvalidComponentFieldException("Invalid tab index " + tabIndex + " for field "
-								+ dialogFieldConfig.getFieldName());
-						}
-
-						tabsList.get(tabIndex - 1).addElement(builtFieldWidget);
-					}
+				if (tabIndex < 1 || tabIndex > tabsList.size()) {
+					throw new InvalidComponentFieldException("Invalid tab index " + tabIndex + " for field "
+						+ dialogFieldConfig.getFieldName());
 				}
+
+				tabsList.get(tabIndex - 1).addElement(builtFieldWidget);
 			}
 		}
 
@@ -15,8 +15,10 @@
  */
 package com.citytechinc.cq.component.dialog.factory;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 import javassist.CannotCompileException;
 import javassist.NotFoundException;
@@ -28,6 +30,9 @@ import com.citytechinc.cq.component.dialog.exception.InvalidComponentFieldExcept
 import com.citytechinc.cq.component.dialog.maker.WidgetMaker;
 import com.citytechinc.cq.component.dialog.maker.WidgetMakerParameters;
 import com.citytechinc.cq.component.dialog.maker.impl.DefaultWidgetMaker;
+import com.citytechinc.cq.component.dialog.widget.IndexedWidgetRegistry;
+import com.citytechinc.cq.component.dialog.widget.WidgetRegistry;
+import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
 import com.citytechinc.cq.component.maven.util.LogSingleton;
 import com.citytechinc.cq.component.util.WidgetConfigHolder;
 
@@ -53,7 +58,8 @@ public class WidgetFactory {
 		if (widgetMakerContext != null) {
 			parameters.setXtype(widgetMakerContext.getXtype());
 			WidgetMaker widgetMaker =
-				widgetMakerContext.getWidgetMaker().getConstructor(WidgetMakerParameters.class).newInstance(parameters);
+				getWidgetMakerConstructor(parameters.getWidgetRegistry(), widgetMakerContext.getWidgetMaker())
+					.newInstance(parameters);
 
 			return widgetMaker.make();
 		}
@@ -61,6 +67,15 @@ public class WidgetFactory {
 		return null;
 	}
 
+	private static Constructor<? extends WidgetMaker> getWidgetMakerConstructor(WidgetRegistry widgetRegistry,
+		Class<? extends WidgetMaker> makerClass) throws NoSuchMethodException {
+		if (widgetRegistry instanceof IndexedWidgetRegistry) {
+			return ((IndexedWidgetRegistry) widgetRegistry).getWidgetMakerConstructor(makerClass);
+		}
+
+		return makerClass.getConstructor(WidgetMakerParameters.class);
+	}
+
 	private static final WidgetMakerContext
 		getWidgetMakerForField(WidgetMakerParameters parameters, int rankingCeiling) throws ClassNotFoundException,
 			InstantiationException, IllegalAccessException, InvalidComponentFieldException {
@@ -104,18 +119,11 @@ public class WidgetFactory {
 
 		WidgetConfigHolder highestRankedWidget = null;
 
-		Set<Class<?>> registeredAnnotations = parameters.getWidgetRegistry().getRegisteredAnnotations();
-
-		for (Class<?> curRegisteredAnnotation : registeredAnnotations) {
-			LOG.debug("Checking for known annotation " + curRegisteredAnnotation);
-			if (parameters.getCtMember().hasAnnotation(curRegisteredAnnotation)) {
-				WidgetConfigHolder curPotential =
-					parameters.getWidgetRegistry().getWidgetForAnnotation(curRegisteredAnnotation);
-				if (rankCeiling < 0 || curPotential.getRanking() < rankCeiling) {
-					LOG.debug("Match found in the registry with ranking " + curPotential.getRanking());
-					if (highestRankedWidget == null || curPotential.getRanking() > highestRankedWidget.getRanking()) {
-						highestRankedWidget = curPotential;
-					}
+		for (WidgetConfigHolder curPotential : getWidgetConfigsForMember(parameters)) {
+			if (rankCeiling < 0 || curPotential.getRanking() < rankCeiling) {
+				LOG.debug("Match found in the registry with ranking " + curPotential.getRanking());
+				if (highestRankedWidget == null || curPotential.getRanking() > highestRankedWidget.getRanking()) {
+					highestRankedWidget = curPotential;
 				}
 			}
 		}
@@ -128,32 +136,71 @@ public class WidgetFactory {
 
 	}
 
+	/**
+	 * Looks up the Widget Configurations of the Widget annotations present on
+	 * the member. Registries offering indexed lookups are asked for the
+	 * annotations of the member only, other registries are checked for each
+	 * of their registered annotations.
+	 */
+	private static List<WidgetConfigHolder> getWidgetConfigsForMember(WidgetMakerParameters parameters)
+		throws ClassNotFoundException {
+		LogSingleton LOG = LogSingleton.getInstance();
+
+		WidgetRegistry widgetRegistry = parameters.getWidgetRegistry();
+
+		List<WidgetConfigHolder> widgetConfigs = new ArrayList<WidgetConfigHolder>();
+
+		if (widgetRegistry instanceof IndexedWidgetRegistry) {
+			for (String curAnnotationName : ComponentMojoUtil.getAnnotationNames(parameters.getCtMember())) {
+				WidgetConfigHolder curPotential =
+					((IndexedWidgetRegistry) widgetRegistry).getWidgetForAnnotationName(curAnnotationName);
+				if (curPotential != null) {
+					LOG.debug("Found known annotation " + curAnnotationName);
+					widgetConfigs.add(curPotential);
+				}
+			}
+		} else {
+			for (Class<?> curRegisteredAnnotation : widgetRegistry.getRegisteredAnnotations()) {
+				LOG.debug("Checking for known annotation " + curRegisteredAnnotation);
+				if (parameters.getCtMember().hasAnnotation(curRegisteredAnnotation)) {
+					widgetConfigs.add(widgetRegistry.getWidgetForAnnotation(curRegisteredAnnotation));
+				}
+			}
+		}
+
+		return widgetConfigs;
+	}
+
 	public static WidgetConfigHolder getWidgetConfigByXtype(String xtype, WidgetMakerParameters parameters,
 		int rankCeiling) {
 		LogSingleton LOG = LogSingleton.getInstance();
 
-		WidgetConfigHolder highestRankedWidget = null;
+		WidgetRegistry widgetRegistry = parameters.getWidgetRegistry();
+
+		if (widgetRegistry instanceof IndexedWidgetRegistry) {
+			for (WidgetConfigHolder curPotential : ((IndexedWidgetRegistry) widgetRegistry).getWidgetsForXtype(xtype)) {
+				if (rankCeiling < 0 || curPotential.getRanking() < rankCeiling) {
+					LOG.debug("Match found in the registry with ranking " + curPotential.getRanking());
+					return curPotential;
+				}
+			}
 
-		Set<Class<?>> registeredAnnotations = parameters.getWidgetRegistry().getRegisteredAnnotations();
+			return null;
+		}
 
-		for (Class<?> curRegisteredAnnotation : registeredAnnotations) {
-			LOG.debug("Checking for known annotation " + curRegisteredAnnotation);
-			WidgetConfigHolder curPotential =
-				parameters.getWidgetRegistry().getWidgetForAnnotation(curRegisteredAnnotation);
-			if (curPotential.getXtype().equals(xtype) && rankCeiling < 0 || curPotential.getRanking() < rankCeiling) {
+		WidgetConfigHolder highestRankedWidget = null;
+
+		for (Class<?> curRegisteredAnnotation : widgetRegistry.getRegisteredAnnotations()) {
+			WidgetConfigHolder curPotential = widgetRegistry.getWidgetForAnnotation(curRegisteredAnnotation);
+			if (xtype.equals(curPotential.getXtype()) && (rankCeiling < 0 || curPotential.getRanking() < rankCeiling)) {
 				LOG.debug("Match found in the registry with ranking " + curPotential.getRanking());
 				if (highestRankedWidget == null || curPotential.getRanking() > highestRankedWidget.getRanking()) {
 					highestRankedWidget = curPotential;
 				}
 			}
-
 		}
 
-		if (highestRankedWidget != null) {
-			return highestRankedWidget;
-		}
-
-		return null;
+		return highestRankedWidget;
 	}
 
 }
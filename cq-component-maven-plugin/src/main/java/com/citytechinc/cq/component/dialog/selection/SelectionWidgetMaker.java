@@ -33,6 +33,7 @@ import com.citytechinc.cq.component.dialog.maker.AbstractWidgetMaker;
 import com.citytechinc.cq.component.dialog.maker.WidgetMakerParameters;
 import com.citytechinc.cq.component.dialog.widgetcollection.WidgetCollection;
 import com.citytechinc.cq.component.dialog.widgetcollection.WidgetCollectionParameters;
+import com.citytechinc.cq.component.maven.util.ComponentDependencyTracker;
 
 /**
  * Builds a SelectionWidget from an annotated field. This maker will operate
@@ -141,6 +142,7 @@ public class SelectionWidgetMaker extends AbstractWidgetMaker<SelectionWidgetPar
 		 * Enum definition
 		 */
 		else if (getType().isEnum()) {
+			ComponentDependencyTracker.recordDependency(getType().getName());
 			int i = 0;
 			for (Object curEnumObject : parameters.getClassLoader().loadClass(getType().getName()).getEnumConstants()) {
 				Enum<?> curEnum = (Enum<?>) curEnumObject;
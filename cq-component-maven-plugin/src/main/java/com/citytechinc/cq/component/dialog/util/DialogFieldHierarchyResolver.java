@@ -0,0 +1,280 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.dialog.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.NotFoundException;
+import javassist.bytecode.Descriptor;
+
+import org.codehaus.plexus.util.StringUtils;
+
+import com.citytechinc.cq.component.annotations.DialogField;
+import com.citytechinc.cq.component.annotations.DialogFieldOverride;
+import com.citytechinc.cq.component.annotations.Listener;
+import com.citytechinc.cq.component.annotations.Property;
+import com.citytechinc.cq.component.dialog.DialogFieldConfig;
+import com.citytechinc.cq.component.dialog.exception.InvalidComponentClassException;
+import com.citytechinc.cq.component.maven.util.ComponentDependencyTracker;
+
+/**
+ * Resolves the Dialog Field configuration of a method from the DialogField and
+ * DialogFieldOverride annotations found on the method's declaring class, its
+ * superclasses and the interfaces they implement.
+ * <p>
+ * Every class in a hierarchy is read once into a table of its annotated
+ * methods keyed by method name and parameter descriptor. Components which
+ * share a base class reuse its table, and a class which does not declare a
+ * method is a failed lookup rather than a thrown NotFoundException. Tables are
+ * kept until {@link #clear()} is called at the end of a build.
+ */
+public class DialogFieldHierarchyResolver {
+
+	private static final Map<CtClass, Hierarchy> HIERARCHIES = new HashMap<CtClass, Hierarchy>();
+
+	private static final Map<CtClass, Map<String, AnnotatedMethod>> METHOD_TABLES =
+		new HashMap<CtClass, Map<String, AnnotatedMethod>>();
+
+	private DialogFieldHierarchyResolver() {
+	}
+
+	/**
+	 * Resolves the Dialog Field configuration of the provided method. A
+	 * DialogField annotation on an interface method is applied first. The
+	 * classes of the hierarchy are then applied from the root down, a
+	 * DialogField annotation replacing the configuration and a
+	 * DialogFieldOverride annotation being merged into it.
+	 *
+	 * @param method
+	 * @return The resolved configuration or null if the method is not
+	 *         annotated anywhere in the hierarchy
+	 * @throws NotFoundException
+	 * @throws ClassNotFoundException
+	 * @throws InvalidComponentClassException if more than one interface
+	 *             annotates the method
+	 */
+	public static DialogFieldConfig resolve(CtMethod method) throws NotFoundException, ClassNotFoundException,
+		InvalidComponentClassException {
+		String signature = getSignature(method);
+		Hierarchy hierarchy = getHierarchy(method.getDeclaringClass());
+
+		for (CtClass curClass : hierarchy.classes) {
+			ComponentDependencyTracker.recordDependency(curClass.getName());
+		}
+
+		for (CtClass curInterface : hierarchy.interfaces) {
+			ComponentDependencyTracker.recordDependency(curInterface.getName());
+		}
+
+		DialogFieldConfig dialogFieldConfig = null;
+
+		AnnotatedMethod interfaceMethod = null;
+		for (CtClass curInterface : hierarchy.interfaces) {
+			AnnotatedMethod curMethod = getMethodTable(curInterface).get(signature);
+			if (curMethod != null && curMethod.dialogField != null) {
+				if (interfaceMethod == null) {
+					interfaceMethod = curMethod;
+				} else {
+					throw new InvalidComponentClassException(
+						"Class has multiple interfaces that have the same method signature annotated");
+				}
+			}
+		}
+
+		if (interfaceMethod != null) {
+			dialogFieldConfig = new DialogFieldConfig(interfaceMethod.dialogField, interfaceMethod.method);
+		}
+
+		for (CtClass curClass : hierarchy.classes) {
+			AnnotatedMethod curMethod = getMethodTable(curClass).get(signature);
+			if (curMethod != null) {
+				if (curMethod.dialogField != null) {
+					dialogFieldConfig = new DialogFieldConfig(curMethod.dialogField, curMethod.method);
+				} else if (curMethod.dialogFieldOverride != null) {
+					mergeDialogFieldOverride(dialogFieldConfig, curMethod.dialogFieldOverride);
+				}
+			}
+		}
+
+		return dialogFieldConfig;
+	}
+
+	/**
+	 * Discards all hierarchy and method tables.
+	 */
+	public static synchronized void clear() {
+		HIERARCHIES.clear();
+		METHOD_TABLES.clear();
+	}
+
+	private static synchronized Hierarchy getHierarchy(CtClass declaringClass) throws NotFoundException {
+		Hierarchy hierarchy = HIERARCHIES.get(declaringClass);
+
+		if (hierarchy == null) {
+			List<CtClass> classes = new ArrayList<CtClass>();
+			List<CtClass> interfaces = new ArrayList<CtClass>();
+
+			CtClass clazz = declaringClass;
+			while (clazz != null) {
+				classes.add(clazz);
+				interfaces.addAll(Arrays.asList(clazz.getInterfaces()));
+				clazz = clazz.getSuperclass();
+			}
+			Collections.reverse(classes);
+
+			hierarchy = new Hierarchy(classes, interfaces);
+			HIERARCHIES.put(declaringClass, hierarchy);
+		}
+
+		return hierarchy;
+	}
+
+	/**
+	 * Builds the table of annotated methods declared by a class. Like
+	 * {@link CtClass#getDeclaredMethod(String, CtClass[])} only the first
+	 * method declared with a given name and parameter list is considered.
+	 */
+	private static synchronized Map<String, AnnotatedMethod> getMethodTable(CtClass clazz)
+		throws ClassNotFoundException {
+		Map<String, AnnotatedMethod> methodTable = METHOD_TABLES.get(clazz);
+
+		if (methodTable == null) {
+			methodTable = new HashMap<String, AnnotatedMethod>();
+			Set<String> declaredSignatures = new HashSet<String>();
+
+			for (CtMethod curMethod : clazz.getDeclaredMethods()) {
+				String signature = getSignature(curMethod);
+				if (declaredSignatures.add(signature)) {
+					DialogField dialogField = (DialogField) curMethod.getAnnotation(DialogField.class);
+					DialogFieldOverride dialogFieldOverride =
+						(DialogFieldOverride) curMethod.getAnnotation(DialogFieldOverride.class);
+					if (dialogField != null || dialogFieldOverride != null) {
+						methodTable.put(signature, new AnnotatedMethod(curMethod, dialogField, dialogFieldOverride));
+					}
+				}
+			}
+
+			METHOD_TABLES.put(clazz, methodTable);
+		}
+
+		return methodTable;
+	}
+
+	private static String getSignature(CtMethod method) {
+		return method.getName() + Descriptor.getParamDescriptor(method.getMethodInfo2().getDescriptor());
+	}
+
+	private static void mergeDialogFieldOverride(DialogFieldConfig dialogFieldConfig,
+		DialogFieldOverride dialogField) {
+		if (dialogFieldConfig == null) {
+			return;
+		}
+
+		if (StringUtils.isNotEmpty(dialogField.fieldLabel())) {
+			dialogFieldConfig.setFieldLabel(dialogField.fieldLabel());
+		}
+
+		if (StringUtils.isNotEmpty(dialogField.fieldDescription())) {
+			dialogFieldConfig.setFieldDescription(dialogField.fieldDescription());
+		}
+
+		dialogFieldConfig.setRequired(dialogField.required());
+
+		dialogFieldConfig.setHideLabel(dialogField.hideLabel());
+
+		if (StringUtils.isNotEmpty(dialogField.defaultValue())) {
+			dialogFieldConfig.setDefaultValue(dialogField.defaultValue());
+		}
+
+		if (StringUtils.isNotEmpty(dialogField.name())) {
+			dialogFieldConfig.setName(dialogField.name());
+		}
+
+		dialogFieldConfig.setTab(dialogField.tab());
+
+		dialogFieldConfig.setRanking(dialogField.ranking());
+
+		if (dialogField.additionalProperties().length > 0) {
+			List<Property> properties = new ArrayList<Property>();
+			properties.addAll(Arrays.asList(dialogField.additionalProperties()));
+			if (dialogField.mergeAdditionalProperties()) {
+				properties.addAll(Arrays.asList(dialogFieldConfig.getAdditionalProperties()));
+			}
+			dialogFieldConfig.setAdditionalProperties(properties.toArray(new Property[properties.size()]));
+		}
+
+		if (dialogField.listeners().length > 0) {
+			List<Listener> listeners = new ArrayList<Listener>();
+			listeners.addAll(Arrays.asList(dialogField.listeners()));
+			if (dialogField.mergeAdditionalProperties()) {
+				listeners.addAll(Arrays.asList(dialogFieldConfig.getListeners()));
+			}
+			dialogFieldConfig.setListeners(listeners.toArray(new Listener[listeners.size()]));
+		}
+
+		if (StringUtils.isNotBlank(dialogField.title())) {
+			dialogFieldConfig.setTitle(dialogField.title());
+		}
+
+		if (StringUtils.isNotBlank(dialogField.value())) {
+			dialogFieldConfig.setValue(dialogField.value());
+		}
+
+		dialogFieldConfig.setDisabled(dialogField.disabled());
+
+		if (StringUtils.isNotBlank(dialogField.cssClass())) {
+			dialogFieldConfig.setCssClass(dialogField.cssClass());
+		}
+
+		dialogFieldConfig.setSuppressTouchUI(dialogField.suppressTouchUI());
+	}
+
+	/**
+	 * The classes of a hierarchy, root first, and the interfaces directly
+	 * implemented by each of them, in the order they are encountered walking
+	 * up from the declaring class.
+	 */
+	private static class Hierarchy {
+		private final List<CtClass> classes;
+		private final List<CtClass> interfaces;
+
+		private Hierarchy(List<CtClass> classes, List<CtClass> interfaces) {
+			this.classes = classes;
+			this.interfaces = interfaces;
+		}
+	}
+
+	private static class AnnotatedMethod {
+		private final CtMethod method;
+		private final DialogField dialogField;
+		private final DialogFieldOverride dialogFieldOverride;
+
+		private AnnotatedMethod(CtMethod method, DialogField dialogField, DialogFieldOverride dialogFieldOverride) {
+			this.method = method;
+			this.dialogField = dialogField;
+			this.dialogFieldOverride = dialogFieldOverride;
+		}
+	}
+}
@@ -15,37 +15,53 @@
  */
 package com.citytechinc.cq.component.dialog.widget.impl;
 
+import java.lang.reflect.Constructor;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javassist.ClassPool;
 import javassist.NotFoundException;
 
 import org.codehaus.plexus.util.StringUtils;
-import org.reflections.Reflections;
 
-import com.citytechinc.cq.component.dialog.widget.WidgetRegistry;
+import com.citytechinc.cq.component.dialog.maker.AbstractWidgetMaker;
+import com.citytechinc.cq.component.dialog.maker.WidgetMaker;
+import com.citytechinc.cq.component.dialog.maker.WidgetMakerParameters;
+import com.citytechinc.cq.component.dialog.widget.IndexedWidgetRegistry;
+import com.citytechinc.cq.component.maven.util.AnnotationIndex;
 import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
 import com.citytechinc.cq.component.maven.util.LogSingleton;
 import com.citytechinc.cq.component.util.WidgetConfigHolder;
 
-public class DefaultWidgetRegistry implements WidgetRegistry {
+public class DefaultWidgetRegistry implements IndexedWidgetRegistry {
 	private static final String DEFAULT_COMPONENT_PACKAGE = "com.citytechinc.cq.component.dialog";
 
 	private final Map<Class<?>, WidgetConfigHolder> annotationToWidgetConfigMap;
 
-	public DefaultWidgetRegistry(ClassPool classPool, ClassLoader classLoader, Reflections reflections,
+	private final Map<String, WidgetConfigHolder> annotationNameToWidgetConfigMap;
+
+	private final Map<String, List<WidgetConfigHolder>> xtypeToWidgetConfigsMap;
+
+	private final Map<Class<? extends WidgetMaker>, Constructor<? extends WidgetMaker>> makerConstructorMap =
+		new ConcurrentHashMap<Class<? extends WidgetMaker>, Constructor<? extends WidgetMaker>>();
+
+	private final Map<Class<? extends WidgetMaker>, Class<?>> makerParametersClassMap =
+		new ConcurrentHashMap<Class<? extends WidgetMaker>, Class<?>>();
+
+	public DefaultWidgetRegistry(ClassPool classPool, ClassLoader classLoader, AnnotationIndex annotationIndex,
 		List<String> additionalFeatures) throws MalformedURLException, ClassNotFoundException, NotFoundException {
 
 		LogSingleton LOG = LogSingleton.getInstance();
 
 		List<WidgetConfigHolder> widgetConfigs =
-			ComponentMojoUtil.getAllWidgetAnnotations(classPool, classLoader, reflections);
+			ComponentMojoUtil.getAllWidgetAnnotations(classPool, classLoader, annotationIndex);
 
 		Collections.sort(widgetConfigs, new Comparator<WidgetConfigHolder>() {
 
@@ -73,6 +89,53 @@ public class DefaultWidgetRegistry implements WidgetRegistry {
 			}
 		}
 
+		this.annotationNameToWidgetConfigMap = new HashMap<String, WidgetConfigHolder>();
+
+		this.xtypeToWidgetConfigsMap = new HashMap<String, List<WidgetConfigHolder>>();
+
+		for (WidgetConfigHolder curConfig : this.annotationToWidgetConfigMap.values()) {
+			this.annotationNameToWidgetConfigMap.put(curConfig.getAnnotationClass().getName(), curConfig);
+
+			if (curConfig.hasXtype()) {
+				List<WidgetConfigHolder> xtypeConfigs = this.xtypeToWidgetConfigsMap.get(curConfig.getXtype());
+				if (xtypeConfigs == null) {
+					xtypeConfigs = new ArrayList<WidgetConfigHolder>();
+					this.xtypeToWidgetConfigsMap.put(curConfig.getXtype(), xtypeConfigs);
+				}
+				xtypeConfigs.add(curConfig);
+			}
+		}
+
+		for (List<WidgetConfigHolder> curXtypeConfigs : this.xtypeToWidgetConfigsMap.values()) {
+			Collections.sort(curXtypeConfigs, new Comparator<WidgetConfigHolder>() {
+
+				@Override
+				public int compare(WidgetConfigHolder widgetConfig1, WidgetConfigHolder widgetConfig2) {
+					if (widgetConfig1.getRanking() > widgetConfig2.getRanking()) {
+						return -1;
+					}
+					if (widgetConfig1.getRanking() < widgetConfig2.getRanking()) {
+						return 1;
+					}
+					return 0;
+				}
+			});
+		}
+
+		/*
+		 * Look up the constructor of each registered Widget Maker once up front.
+		 * Widget Makers without a suitable constructor fail when they are used.
+		 */
+		for (WidgetConfigHolder curConfig : this.annotationToWidgetConfigMap.values()) {
+			if (curConfig.getMakerClass() != null) {
+				try {
+					getWidgetMakerConstructor(curConfig.getMakerClass());
+				} catch (NoSuchMethodException e) {
+					LOG.debug("Widget Maker " + curConfig.getMakerClass()
+						+ " has no WidgetMakerParameters constructor");
+				}
+			}
+		}
 	}
 
 	@Override
@@ -80,6 +143,47 @@ public class DefaultWidgetRegistry implements WidgetRegistry {
 		return this.annotationToWidgetConfigMap.get(annotation);
 	}
 
+	@Override
+	public WidgetConfigHolder getWidgetForAnnotationName(String annotationName) {
+		return this.annotationNameToWidgetConfigMap.get(annotationName);
+	}
+
+	@Override
+	public List<WidgetConfigHolder> getWidgetsForXtype(String xtype) {
+		List<WidgetConfigHolder> xtypeConfigs = this.xtypeToWidgetConfigsMap.get(xtype);
+
+		if (xtypeConfigs == null) {
+			return Collections.emptyList();
+		}
+
+		return Collections.unmodifiableList(xtypeConfigs);
+	}
+
+	@Override
+	public Constructor<? extends WidgetMaker> getWidgetMakerConstructor(Class<? extends WidgetMaker> makerClass)
+		throws NoSuchMethodException {
+		Constructor<? extends WidgetMaker> makerConstructor = this.makerConstructorMap.get(makerClass);
+
+		if (makerConstructor == null) {
+			makerConstructor = makerClass.getConstructor(WidgetMakerParameters.class);
+			this.makerConstructorMap.put(makerClass, makerConstructor);
+		}
+
+		return makerConstructor;
+	}
+
+	@Override
+	public Class<?> getWidgetParametersClass(Class<? extends WidgetMaker> makerClass) {
+		Class<?> parametersClass = this.makerParametersClassMap.get(makerClass);
+
+		if (parametersClass == null) {
+			parametersClass = AbstractWidgetMaker.getParametersClass(makerClass);
+			this.makerParametersClassMap.put(makerClass, parametersClass);
+		}
+
+		return parametersClass;
+	}
+
 	@Override
 	public Set<Class<?>> getRegisteredAnnotations() {
 		return this.annotationToWidgetConfigMap.keySet();
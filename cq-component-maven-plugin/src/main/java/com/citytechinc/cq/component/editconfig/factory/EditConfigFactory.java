@@ -24,14 +24,11 @@ import java.util.Map;
 
 import javassist.ClassPool;
 import javassist.CtClass;
-import javassist.CtMember;
-import javassist.CtMethod;
 import javassist.NotFoundException;
 
 import org.codehaus.plexus.util.StringUtils;
 
 import com.citytechinc.cq.component.annotations.Component;
-import com.citytechinc.cq.component.annotations.IgnoreInPlaceEditor;
 import com.citytechinc.cq.component.annotations.Listener;
 import com.citytechinc.cq.component.annotations.editconfig.ActionConfig;
 import com.citytechinc.cq.component.annotations.editconfig.ActionConfigProperty;
@@ -59,8 +56,7 @@ import com.citytechinc.cq.component.editconfig.listeners.EditConfigListeners;
 import com.citytechinc.cq.component.editconfig.listeners.EditConfigListenersParameters;
 import com.citytechinc.cq.component.editconfig.maker.InPlaceEditorMakerParameters;
 import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry;
-import com.citytechinc.cq.component.editconfig.util.EditConfigUtil;
-import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
+import com.citytechinc.cq.component.model.ComponentModel;
 import com.citytechinc.cq.component.util.Constants;
 import com.citytechinc.cq.component.util.InPlaceEditorConfigHolder;
 import com.citytechinc.cq.component.xml.DefaultXmlElement;
@@ -73,12 +69,13 @@ public class EditConfigFactory {
 	private EditConfigFactory() {
 	}
 
-	public static EditConfig make(CtClass componentClass, InPlaceEditorRegistry inPlaceEditorRegistry,
+	public static EditConfig make(ComponentModel componentModel, InPlaceEditorRegistry inPlaceEditorRegistry,
 		ClassLoader classLoader, ClassPool classPool) throws InvalidComponentClassException, ClassNotFoundException,
 		NotFoundException, InstantiationException, IllegalAccessException, IllegalArgumentException,
 		InvocationTargetException, NoSuchMethodException, SecurityException {
 
-		Component componentAnnotation = (Component) componentClass.getAnnotation(Component.class);
+		CtClass componentClass = componentModel.getComponentClass();
+		Component componentAnnotation = componentModel.getComponentAnnotation();
 
 		if (componentAnnotation == null) {
 			throw new InvalidComponentClassException("Class provided is not property annotated");
@@ -108,7 +105,7 @@ public class EditConfigFactory {
 		}
 
 		InPlaceEditorElement ecipe =
-			getInPlaceEditingForEditConfig(componentClass, componentAnnotation, inPlaceEditorRegistry);
+			getInPlaceEditingForEditConfig(componentModel, componentAnnotation, inPlaceEditorRegistry);
 		if (ecipe != null) {
 			editConfigChildren.add(ecipe);
 		}
@@ -189,7 +186,7 @@ public class EditConfigFactory {
 		return null;
 	}
 
-	private static InPlaceEditorElement getInPlaceEditingForEditConfig(CtClass componentClass,
+	private static InPlaceEditorElement getInPlaceEditingForEditConfig(ComponentModel componentModel,
 		Component componentAnnotation, InPlaceEditorRegistry inPlaceEditorRegistry) throws NotFoundException,
 		ClassNotFoundException, InvalidComponentClassException, InstantiationException, IllegalAccessException,
 		IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
@@ -205,34 +202,7 @@ public class EditConfigFactory {
 			parameters.setActive(componentAnnotation.inPlaceEditingActive());
 			return new EditConfigInPlaceEditing(parameters);
 		} else {
-			List<InPlaceEditorConfig> inPlaceEditorConfigs = new ArrayList<InPlaceEditorConfig>();
-			List<CtMember> fieldsAndMethods = new ArrayList<CtMember>();
-			fieldsAndMethods.addAll(ComponentMojoUtil.collectFields(componentClass));
-			fieldsAndMethods.addAll(ComponentMojoUtil.collectMethods(componentClass));
-
-			for (CtMember member : fieldsAndMethods) {
-				if (!member.hasAnnotation(IgnoreInPlaceEditor.class)) {
-					InPlaceEditorConfig inPlaceEditorConfig = null;
-					if (member instanceof CtMethod) {
-						inPlaceEditorConfig =
-							EditConfigUtil.getInPlaceEditorFromSuperClasses((CtMethod) member,
-								inPlaceEditorRegistry.getRegisteredAnnotations());
-					} else {
-						for (Class<?> annotationClass : inPlaceEditorRegistry.getRegisteredAnnotations()) {
-							Object ipeAnnotation = member.getAnnotation(annotationClass);
-							if (ipeAnnotation != null) {
-								if (inPlaceEditorConfig == null) {
-									inPlaceEditorConfig =
-										new InPlaceEditorConfig(ipeAnnotation, member, annotationClass);
-								}
-							}
-						}
-					}
-					if (inPlaceEditorConfig != null) {
-						inPlaceEditorConfigs.add(inPlaceEditorConfig);
-					}
-				}
-			}
+			List<InPlaceEditorConfig> inPlaceEditorConfigs = componentModel.getInPlaceEditorConfigs();
 			if (inPlaceEditorConfigs.size() > 0) {
 				if (inPlaceEditorConfigs.size() == 1) {
 					InPlaceEditorConfigHolder ipeConfigHolder =
@@ -25,8 +25,7 @@ import java.util.Set;
 import javassist.ClassPool;
 import javassist.NotFoundException;
 
-import org.reflections.Reflections;
-
+import com.citytechinc.cq.component.maven.util.AnnotationIndex;
 import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
 import com.citytechinc.cq.component.maven.util.LogSingleton;
 import com.citytechinc.cq.component.util.InPlaceEditorConfigHolder;
@@ -36,12 +35,12 @@ public class DefaultInPlaceEditorRegistry implements InPlaceEditorRegistry {
 
 	private final Map<Class<?>, InPlaceEditorConfigHolder> annotationToInPlaceEditorConfigMap;
 
-	public DefaultInPlaceEditorRegistry(ClassPool classPool, ClassLoader classLoader, Reflections reflections)
+	public DefaultInPlaceEditorRegistry(ClassPool classPool, ClassLoader classLoader, AnnotationIndex annotationIndex)
 		throws NotFoundException, ClassNotFoundException {
 		annotationToInPlaceEditorConfigMap = new HashMap<Class<?>, InPlaceEditorConfigHolder>();
 
 		List<InPlaceEditorConfigHolder> inPlaceEditorConfigurations =
-			ComponentMojoUtil.getInPlaceEditorAnnotations(classPool, classLoader, reflections);
+			ComponentMojoUtil.getInPlaceEditorAnnotations(classPool, classLoader, annotationIndex);
 
 		/*
 		 * When two InPlaceEditor types are configured for the same
@@ -15,7 +15,6 @@
  */
 package com.citytechinc.cq.component.editconfig.util;
 
-import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -29,58 +28,28 @@ import javassist.CtClass;
 import javassist.CtMethod;
 import javassist.NotFoundException;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-
-import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
-
-import com.citytechinc.cq.component.annotations.Component;
 import com.citytechinc.cq.component.annotations.editconfig.InPlaceEditorConfig;
-import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentClassException;
 import com.citytechinc.cq.component.dialog.exception.OutputFailureException;
 import com.citytechinc.cq.component.editconfig.EditConfig;
 import com.citytechinc.cq.component.editconfig.factory.EditConfigFactory;
 import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry;
 import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
+import com.citytechinc.cq.component.maven.util.ComponentOutputSink;
+import com.citytechinc.cq.component.model.ComponentModel;
 
 public class EditConfigUtil {
 	private EditConfigUtil() {
 	}
 
 	/**
-	 * Writes a provided file to a provided archive output stream at a path
-	 * determined by the class of the component.
-	 * 
-	 * @param editConfigFile
-	 * @param componentClass
-	 * @param archiveStream
-	 * @param reservedNames A list of files which already exist within the Zip
-	 *            Archive. If an edit config file already exists for a
-	 *            particular component, it is left untouched.
-	 * @param componentPathBase
-	 * @throws IOException
-	 * @throws ClassNotFoundException
-	 */
-	public static void writeEditConfigToArchiveFile(ComponentNameTransformer transformer, File editConfigFile,
-		CtClass componentClass, ZipArchiveOutputStream archiveStream, Set<String> reservedNames,
-		String componentPathBase, String defaultComponentPathSuffix) throws IOException, ClassNotFoundException {
-
-		ComponentMojoUtil.writeElementToArchiveFile(transformer, editConfigFile, componentClass, archiveStream,
-			reservedNames, componentPathBase, defaultComponentPathSuffix, "/_cq_editConfig.xml");
-
-	}
-
-	/**
-	 * Determines the name of the edit config file to be written and writes the
-	 * the edit config xml which the provided EditConfig object represents to
-	 * that determined file.
+	 * Writes the edit config xml which the provided EditConfig object
+	 * represents to the provided output sink, at a path determined by the
+	 * class of the component.
 	 * 
 	 * @param editConfig
 	 * @param componentClass
-	 * @return The file written
-	 * @throws TransformerException
-	 * @throws ParserConfigurationException
+	 * @param outputSink
 	 * @throws IOException
 	 * @throws OutputFailureException
 	 * @throws ClassNotFoundException
@@ -90,28 +59,26 @@ public class EditConfigUtil {
 	 * @throws SecurityException
 	 * @throws IllegalArgumentException
 	 */
-	public static File writeEditConfigToFile(ComponentNameTransformer transformer, EditConfig editConfig,
-		CtClass componentClass, File buildDirectory, String componentPathBase, String defaultComponentPathSuffix)
-		throws TransformerException, ParserConfigurationException, IOException, OutputFailureException,
-		ClassNotFoundException, IllegalArgumentException, SecurityException, IllegalAccessException,
-		InvocationTargetException, NoSuchMethodException {
+	public static void writeEditConfig(EditConfig editConfig, CtClass componentClass, ComponentOutputSink outputSink)
+		throws IOException, OutputFailureException, ClassNotFoundException, IllegalArgumentException,
+		SecurityException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
 
-		return ComponentMojoUtil.writeElementToFile(transformer, editConfig, componentClass, buildDirectory,
-			componentPathBase, defaultComponentPathSuffix, "_cq_editConfig.xml");
+		ComponentMojoUtil.writeElementToSink(editConfig, componentClass, "_cq_editConfig.xml", outputSink);
 	}
 
 	/**
-	 * For each class in the provided classList which is annotated with a
-	 * Component annotation, an EditConfig object is built and added to the
-	 * returned list. Classes which are not thusly annotated are ignored.
+	 * For each Component model whose Component annotation enables the edit
+	 * config, an EditConfig object is built, written to the output sink and
+	 * added to the returned list. If an edit config file already exists for a
+	 * particular component, it is left untouched.
 	 * 
-	 * @param classList
-	 * @param zipOutputStream
-	 * @param reservedNames
+	 * @param componentModels
+	 * @param outputSink
+	 * @param inPlaceEditorRegistry
+	 * @param classLoader
+	 * @param classPool
 	 * @return The constructed list of EditConfig objects
 	 * @throws InvalidComponentClassException
-	 * @throws TransformerException
-	 * @throws ParserConfigurationException
 	 * @throws IOException
 	 * @throws OutputFailureException
 	 * @throws ClassNotFoundException
@@ -123,30 +90,24 @@ public class EditConfigUtil {
 	 * @throws NotFoundException
 	 * @throws InstantiationException
 	 */
-	public static List<EditConfig> buildEditConfigFromClassList(List<CtClass> classList,
-		ZipArchiveOutputStream zipOutputStream, Set<String> reservedNames, InPlaceEditorRegistry inPlaceEditorRegistry,
-		ClassLoader classLoader, ClassPool classPool, File buildDirectory, String componentPathBase,
-		String defaultComponentPathSuffix, ComponentNameTransformer transformer) throws InvalidComponentClassException,
-		TransformerException, ParserConfigurationException, IOException, OutputFailureException,
+	public static List<EditConfig> buildEditConfigFromClassList(List<ComponentModel> componentModels,
+		ComponentOutputSink outputSink, InPlaceEditorRegistry inPlaceEditorRegistry, ClassLoader classLoader,
+		ClassPool classPool) throws InvalidComponentClassException, IOException, OutputFailureException,
 		ClassNotFoundException, IllegalArgumentException, SecurityException, IllegalAccessException,
 		InvocationTargetException, NoSuchMethodException, NotFoundException, InstantiationException {
 
 		List<EditConfig> builtEditConfigs = new ArrayList<EditConfig>();
 
-		for (CtClass curClass : classList) {
-			Component annotation = (Component) curClass.getAnnotation(Component.class);
+		for (ComponentModel curModel : componentModels) {
+			CtClass curClass = curModel.getComponentClass();
 
-			if (annotation != null && annotation.editConfig()) {
+			if (curModel.getComponentAnnotation().editConfig()) {
 				EditConfig builtEditConfig =
-					EditConfigFactory.make(curClass, inPlaceEditorRegistry, classLoader, classPool);
+					EditConfigFactory.make(curModel, inPlaceEditorRegistry, classLoader, classPool);
 
 				builtEditConfigs.add(builtEditConfig);
 
-				File editConfigFile =
-					writeEditConfigToFile(transformer, builtEditConfig, curClass, buildDirectory, componentPathBase,
-						defaultComponentPathSuffix);
-				writeEditConfigToArchiveFile(transformer, editConfigFile, curClass, zipOutputStream, reservedNames,
-					componentPathBase, defaultComponentPathSuffix);
+				writeEditConfig(builtEditConfig, curClass, outputSink);
 			}
 		}
 
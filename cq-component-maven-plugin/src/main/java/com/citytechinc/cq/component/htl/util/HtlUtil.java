@@ -16,32 +16,25 @@
 package com.citytechinc.cq.component.htl.util;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
-
-import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.runtime.RuntimeConstants;
 import org.apache.velocity.texen.util.FileUtil;
 
-import com.citytechinc.cq.component.annotations.Component;
 import com.citytechinc.cq.component.content.Content;
 import com.citytechinc.cq.component.content.factory.ContentFactory;
-import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentClassException;
 import com.citytechinc.cq.component.dialog.exception.OutputFailureException;
 import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
+import com.citytechinc.cq.component.maven.util.ComponentOutputSink;
+import com.citytechinc.cq.component.model.ComponentModel;
 
 import javassist.CtClass;
 import javassist.CtField;
@@ -55,104 +48,61 @@ public class HtlUtil {
 
 
 	/**
-	 * Write the content.xml to an output file, the path of which is determined
-	 * by the component class
+	 * Determines the directory the Velocity templates of the HTL scripts are
+	 * loaded from
 	 * 
-	 * @param content
-	 * @param componentClass
-	 * @return The written file
-	 * @throws TransformerException
-	 * @throws ParserConfigurationException
-	 * @throws IOException
-	 * @throws OutputFailureException
-	 * @throws ClassNotFoundException
-	 * @throws NoSuchMethodException
-	 * @throws InvocationTargetException
-	 * @throws IllegalAccessException
-	 * @throws SecurityException
-	 * @throws IllegalArgumentException
+	 * @param buildDirectory
+	 * @return The template directory
 	 */
-	public static File writeContentToFile(ComponentNameTransformer transformer, File file,
-			CtClass componentClass, File buildDirectory, String componentPathBase, String defaultComponentPathSuffix)
-					throws TransformerException, ParserConfigurationException, IOException, OutputFailureException,
-					ClassNotFoundException, IllegalArgumentException, SecurityException, IllegalAccessException,
-					InvocationTargetException, NoSuchMethodException {
-
-		return ComponentMojoUtil.writeElementToFile(transformer, file, componentClass, buildDirectory,
-				componentPathBase, defaultComponentPathSuffix, "\\"+componentClass.getSimpleName().toLowerCase() + ".html");
+	public static File getTemplateDirectory(File buildDirectory) {
+		return new File(buildDirectory.getParentFile().getAbsolutePath() + "\\templates");
 	}
 
 	/**
-	 * Writes a provided content file to a provided archive output stream at a
-	 * path determined by the class of the component.
+	 * Writes the provided HTL script to the provided output sink, the path of
+	 * which is determined by the component class
 	 * 
-	 * @param contentFile
+	 * @param htl
 	 * @param componentClass
-	 * @param archiveStream
-	 * @param reservedNames A list of files which already exist within the Zip
-	 *            Archive. If a .content.xml file already exists for a
-	 *            particular component, it is left untouched.
-	 * @param componentPathBase
+	 * @param outputSink
 	 * @throws IOException
+	 * @throws OutputFailureException
 	 * @throws ClassNotFoundException
 	 */
-	public static void writeContentToArchiveFile(ComponentNameTransformer transformer, File contentFile,
-			CtClass componentClass, ZipArchiveOutputStream archiveStream, Set<String> reservedNames,
-			String componentPathBase, String defaultComponentPathSuffix) throws IOException, ClassNotFoundException {
+	public static void writeHtl(String htl, CtClass componentClass, ComponentOutputSink outputSink)
+			throws IOException, OutputFailureException, ClassNotFoundException {
 
-		ComponentMojoUtil.writeElementToArchiveFile(transformer, contentFile, componentClass, archiveStream,
-				reservedNames, componentPathBase, defaultComponentPathSuffix, "\\"+componentClass.getSimpleName().toLowerCase() + ".html");
+		outputSink.write(componentClass, componentClass.getSimpleName().toLowerCase() + ".html", htl.getBytes());
 	}
 
 	/**
 	 * Constructs a list of Content objects representing .html files from
-	 * a list of Classes. For each Class annotated with a Component annotation a
-	 * Content object is constructed.
+	 * a list of Component models. For each model an .html file is
+	 * constructed and written to the output sink.
 	 * 
-	 * @param classList
-	 * @param zipOutputStream
-	 * @param reservedNames
+	 * @param componentModels
+	 * @param outputSink
+	 * @param buildDirectory
 	 * @return The constructed Content objects
 	 * @throws InvalidComponentClassException
-	 * @throws TransformerException
-	 * @throws ParserConfigurationException
 	 * @throws IOException
 	 * @throws OutputFailureException
 	 * @throws ClassNotFoundException
-	 * @throws NoSuchMethodException
-	 * @throws InvocationTargetException
-	 * @throws IllegalAccessException
-	 * @throws SecurityException
-	 * @throws IllegalArgumentException
 	 */
-	public static List<Content> buildHtlFromClassList(List<CtClass> classList,
-			ZipArchiveOutputStream zipOutputStream, Set<String> reservedNames, File buildDirectory,
-			String componentPathBase, String defaultComponentPathSuffix, String defaultComponentGroup,
-			ComponentNameTransformer transformer) throws InvalidComponentClassException, TransformerException,
-	ParserConfigurationException, IOException, OutputFailureException, ClassNotFoundException,
-	IllegalArgumentException, SecurityException, IllegalAccessException, InvocationTargetException,
-	NoSuchMethodException {
+	public static List<Content> buildHtlFromClassList(List<ComponentModel> componentModels,
+			ComponentOutputSink outputSink, File buildDirectory) throws InvalidComponentClassException, IOException,
+			OutputFailureException, ClassNotFoundException {
 
 		List<Content> builtContents = new ArrayList<Content>();
 
-		for (CtClass curClass : classList) {
-			ComponentMojoUtil.getLog().debug("Checking class for Component annotation " + curClass);
+		for (ComponentModel curModel : componentModels) {
+			CtClass curClass = curModel.getComponentClass();
 
-			Component annotation = (Component) curClass.getAnnotation(Component.class);
+			ComponentMojoUtil.getLog().debug("Processing Component Class " + curClass);
 
-			ComponentMojoUtil.getLog().debug("Annotation : " + annotation);
+			String htl = createHtlForClass(curClass, buildDirectory);
 
-			if (annotation != null) {
-				ComponentMojoUtil.getLog().debug("Processing Component Class " + curClass);
-
-				File contentFile = createHtlForClass(curClass, buildDirectory);
-
-				writeContentToFile(transformer, contentFile, curClass, buildDirectory, componentPathBase,
-				defaultComponentPathSuffix);
-
-				writeContentToArchiveFile(transformer, contentFile, curClass, zipOutputStream, reservedNames,
-						componentPathBase, defaultComponentPathSuffix);
-			}
+			writeHtl(htl, curClass, outputSink);
 		}
 
 		return builtContents;
@@ -160,12 +110,9 @@ public class HtlUtil {
 	}
 
 
-	private static File createHtlForClass(CtClass componentClass, File buildDirectory) throws ClassNotFoundException, InvalidComponentClassException, IOException {
+	private static String createHtlForClass(CtClass componentClass, File buildDirectory) throws ClassNotFoundException, InvalidComponentClassException, IOException {
 		// TODO Auto-generated method stub
 
-		Component annotation = (Component) componentClass.getAnnotation(Component.class);
-
-		ComponentMojoUtil.getLog().debug("Annotation : " + annotation);
 		ComponentMojoUtil.getLog().debug("Processing Component Class " + componentClass);
 
 		String filePath = buildDirectory.getParentFile().getAbsolutePath()+"\\"+componentClass.getSimpleName()+".vm";
@@ -185,7 +132,7 @@ public class HtlUtil {
 		VelocityEngine velocity = new VelocityEngine();	
 		velocity.setProperty(RuntimeConstants.RESOURCE_LOADER, "file");
 		velocity.setProperty("file.resource.loader.class", org.apache.velocity.runtime.resource.loader.FileResourceLoader.class.getName());
-		velocity.setProperty("file.resource.loader.path", buildDirectory.getParentFile().getAbsolutePath()+"\\templates");
+		velocity.setProperty("file.resource.loader.path", getTemplateDirectory(buildDirectory).getPath());
 		velocity.setProperty("file.resource.loader.cache", true);
 		velocity.init();
 		
@@ -208,13 +155,7 @@ public class HtlUtil {
 		Writer writer = new StringWriter();
 		template.merge( context, writer );
 
-		File newFile = new File(buildDirectory+"\\temp.txt");
-		FileWriter fw = new FileWriter(newFile);
-		fw.write(writer.toString());
-		fw.close();
-		writer.flush();
-
-		return newFile;
+		return writer.toString();
 
 	}
 
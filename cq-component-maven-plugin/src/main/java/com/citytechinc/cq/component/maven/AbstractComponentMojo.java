@@ -0,0 +1,424 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+
+import javax.naming.ConfigurationException;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.Scanner;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+import com.citytechinc.cq.component.annotations.Component;
+import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
+import com.citytechinc.cq.component.dialog.widget.WidgetRegistry;
+import com.citytechinc.cq.component.dialog.widget.impl.DefaultWidgetRegistry;
+import com.citytechinc.cq.component.editconfig.registry.DefaultInPlaceEditorRegistry;
+import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry;
+import com.citytechinc.cq.component.htl.util.HtlUtil;
+import com.citytechinc.cq.component.maven.util.AnnotationIndex;
+import com.citytechinc.cq.component.maven.util.AnnotationIndexCache;
+import com.citytechinc.cq.component.maven.util.AnnotationIndexUtil;
+import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
+import com.citytechinc.cq.component.maven.util.LogSingleton;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.DefaultTouchUIWidgetRegistry;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.TouchUIWidgetRegistry;
+
+/**
+ * The configuration and setup shared by the goals generating Components. The
+ * project's Components, Widgets, In Place Editors and Transformers are
+ * discovered once, after which the goal decides where the generated files
+ * are written.
+ * <p>
+ * Within an incremental build, such as an IDE auto build, nothing is done
+ * unless a class file within the project's output directory was changed or
+ * deleted. The files the goal wrote or removed are then refreshed through
+ * the {@link BuildContext}.
+ */
+public abstract class AbstractComponentMojo extends AbstractMojo {
+
+	private static final String[] CLASS_FILE_INCLUDES = { "**/*.class" };
+
+	@org.apache.maven.plugins.annotations.Component
+	private BuildContext buildContext;
+
+	@Parameter(defaultValue = "${project}")
+	private MavenProject project;
+
+	@Parameter
+	private String componentPathBase;
+
+	@Parameter(defaultValue = "content")
+	private String componentPathSuffix;
+
+	@Parameter(defaultValue = "Components")
+	private String defaultComponentGroup;
+
+	@Parameter(defaultValue = "camel-case")
+	private String transformerName;
+
+	@Parameter(required = false)
+	private List<Dependency> excludeDependencies;
+
+	@Parameter(required = false)
+	private List<Dependency> includeDependencies;
+
+	@Parameter(defaultValue = "false")
+	private boolean scanCompileClasspath;
+
+	@Parameter(defaultValue = "true")
+	private boolean useScanCache;
+
+	@Parameter(defaultValue = "${project.build.directory}/cq-component-cache")
+	private File scanCacheDirectory;
+
+	@Parameter(defaultValue = "true")
+	private boolean generateTouchUiDialogs;
+	
+	@Parameter(defaultValue = "true")
+	private boolean generateComponentHTL;
+
+	@Parameter(defaultValue = "true")
+	private boolean generateClassicUiDialogs;
+
+	@Parameter(required = false)
+	private List<String> additionalFeatures;
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		LogSingleton.getInstance().setLogger(getLog());
+
+		if (!hasClassDelta()) {
+			getLog().info("No classes or templates changed since the last build, skipping component generation");
+			return;
+		}
+
+		try {
+
+			@SuppressWarnings("unchecked")
+			List<String> classpathElements = project.getCompileClasspathElements();
+
+			ClassLoader classLoader =
+				ComponentMojoUtil.getClassLoader(classpathElements, this.getClass().getClassLoader());
+
+			ClassPool classPool = ComponentMojoUtil.getClassPool(classLoader);
+
+			AnnotationIndex annotationIndex =
+				AnnotationIndexUtil.buildAnnotationIndex(getScanUrls(), getAnnotationIndexCache());
+
+			List<CtClass> classList =
+				ComponentMojoUtil.getAllComponentAnnotations(classPool, annotationIndex,
+					getExcludedClasses(annotationIndex));
+
+			WidgetRegistry widgetRegistry =
+				new DefaultWidgetRegistry(classPool, classLoader, annotationIndex, getAdditionalFeatures());
+
+			TouchUIWidgetRegistry touchUIWidgetRegistry =
+				new DefaultTouchUIWidgetRegistry(classPool, classLoader, annotationIndex, getAdditionalFeatures());
+
+			InPlaceEditorRegistry inPlaceEditorRegistry =
+				new DefaultInPlaceEditorRegistry(classPool, classLoader, annotationIndex);
+
+			ComponentNameTransformer transformer =
+				ComponentMojoUtil.getTransformer(classPool, annotationIndex, transformerName);
+
+			if (transformer == null) {
+				throw new ConfigurationException("The configured transformer wasn't found");
+			}
+
+			List<File> changedFiles =
+				generateComponents(classList, widgetRegistry, touchUIWidgetRegistry, inPlaceEditorRegistry,
+					classLoader, classPool, transformer);
+
+			for (File curChangedFile : changedFiles) {
+				buildContext.refresh(curChangedFile);
+			}
+
+		} catch (Exception e) {
+			getLog().error(e.getMessage(), e);
+			throw new MojoExecutionException(e.getMessage(), e);
+		}
+
+	}
+
+	/**
+	 * Generates the files of the provided Components and writes them to the
+	 * goal's destination.
+	 *
+	 * @param classList
+	 * @param widgetRegistry
+	 * @param touchUIWidgetRegistry
+	 * @param inPlaceEditorRegistry
+	 * @param classLoader
+	 * @param classPool
+	 * @param transformer
+	 * @return The files written or removed outside of the goal's package
+	 * @throws Exception
+	 */
+	protected abstract List<File> generateComponents(List<CtClass> classList, WidgetRegistry widgetRegistry,
+		TouchUIWidgetRegistry touchUIWidgetRegistry, InPlaceEditorRegistry inPlaceEditorRegistry,
+		ClassLoader classLoader, ClassPool classPool, ComponentNameTransformer transformer) throws Exception;
+
+	/**
+	 * Determines whether a class file within the project's output directory
+	 * or an HTL template was changed or deleted since the last build. Outside
+	 * of an incremental build this is always assumed to be the case, as it is
+	 * when dependencies are scanned, their changes not being reported by the
+	 * build context of the project.
+	 *
+	 * @return true if the Components need to be generated, false otherwise
+	 */
+	private boolean hasClassDelta() {
+		if (!buildContext.isIncremental()) {
+			return true;
+		}
+
+		if (scanCompileClasspath || (includeDependencies != null && !includeDependencies.isEmpty())) {
+			getLog().debug("Dependencies are scanned, checking all components");
+			return true;
+		}
+
+		File templateDirectory = HtlUtil.getTemplateDirectory(getBuildDirectory());
+
+		if (hasDelta(templateDirectory, null)) {
+			getLog().debug("HTL templates changed");
+			return true;
+		}
+
+		return hasDelta(new File(project.getBuild().getOutputDirectory()), CLASS_FILE_INCLUDES);
+	}
+
+	/**
+	 * Determines whether a file within the provided directory was changed or
+	 * deleted since the last build.
+	 *
+	 * @param directory
+	 * @param includes The patterns of the files checked or null to check all
+	 *            files
+	 * @return true if a file changed, false otherwise
+	 */
+	private boolean hasDelta(File directory, String[] includes) {
+		if (!buildContext.hasDelta(directory)) {
+			return false;
+		}
+
+		Scanner scanner = buildContext.newScanner(directory);
+		scanner.setIncludes(includes);
+		scanner.scan();
+
+		if (scanner.getIncludedFiles().length > 0) {
+			getLog().debug(scanner.getIncludedFiles().length + " files changed in " + directory);
+			return true;
+		}
+
+		Scanner deleteScanner = buildContext.newDeleteScanner(directory);
+		deleteScanner.setIncludes(includes);
+		deleteScanner.scan();
+
+		if (deleteScanner.getIncludedFiles().length > 0) {
+			getLog().debug(deleteScanner.getIncludedFiles().length + " files deleted in " + directory);
+			return true;
+		}
+
+		return false;
+	}
+
+	protected BuildContext getBuildContext() {
+		return buildContext;
+	}
+
+	protected MavenProject getProject() {
+		return project;
+	}
+
+	protected File getBuildDirectory() {
+		return new File(project.getBuild().getDirectory());
+	}
+
+	protected String getComponentPathBase() {
+		return componentPathBase;
+	}
+
+	protected String getComponentPathSuffix() {
+		return componentPathSuffix;
+	}
+
+	protected String getDefaultComponentGroup() {
+		return defaultComponentGroup;
+	}
+
+	protected boolean isGenerateTouchUiDialogs() {
+		return generateTouchUiDialogs;
+	}
+
+	protected boolean isGenerateClassicUiDialogs() {
+		return generateClassicUiDialogs;
+	}
+
+	/**
+	 * Determines the locations which are scanned for Components, Widgets,
+	 * In Place Editors and Transformers. Unless scanCompileClasspath is
+	 * enabled, this is limited to the project's output directory, the plugin
+	 * itself, and the dependencies listed in includeDependencies.
+	 *
+	 * @return The URLs to scan
+	 * @throws DependencyResolutionRequiredException
+	 * @throws MalformedURLException
+	 */
+	private List<URL> getScanUrls() throws DependencyResolutionRequiredException, MalformedURLException {
+		List<String> scanPaths = new ArrayList<String>();
+
+		if (scanCompileClasspath) {
+			@SuppressWarnings("unchecked")
+			List<String> classpathElements = project.getCompileClasspathElements();
+			scanPaths.addAll(classpathElements);
+		} else {
+			scanPaths.add(project.getBuild().getOutputDirectory());
+
+			List<String> includedDependencyPaths = getDependencyPaths(includeDependencies);
+
+			if (includedDependencyPaths != null) {
+				scanPaths.addAll(includedDependencyPaths);
+			}
+		}
+
+		List<URL> scanUrls = new ArrayList<URL>();
+
+		for (String curPath : scanPaths) {
+			getLog().debug("Scanning " + curPath);
+			scanUrls.add(new File(curPath).toURI().toURL());
+		}
+
+		scanUrls.add(ComponentMojoUtil.getPluginClasspathUrl());
+
+		return scanUrls;
+	}
+
+	/**
+	 * @return The cache of archive indexes or null if useScanCache is disabled
+	 */
+	private AnnotationIndexCache getAnnotationIndexCache() {
+		if (useScanCache) {
+			getLog().debug("Caching archive scan results in " + scanCacheDirectory);
+			return new AnnotationIndexCache(scanCacheDirectory);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Determines the names of the Components which were indexed from one of
+	 * the dependencies listed in excludeDependencies.
+	 *
+	 * @param annotationIndex
+	 * @return The excluded Class names or null if no dependencies are excluded
+	 * @throws DependencyResolutionRequiredException
+	 * @throws MalformedURLException
+	 */
+	private Set<String> getExcludedClasses(AnnotationIndex annotationIndex)
+		throws DependencyResolutionRequiredException, MalformedURLException {
+
+		getLog().debug("Constructing set of excluded Class names");
+
+		List<String> excludedDependencyPaths = getDependencyPaths(excludeDependencies);
+
+		if (excludedDependencyPaths != null) {
+			Set<String> excludedSources = new HashSet<String>();
+
+			for (String curPath : excludedDependencyPaths) {
+				excludedSources.add(new File(curPath).toURI().toURL().toExternalForm());
+			}
+
+			return annotationIndex.getClassNamesAnnotatedWith(Component.class, excludedSources);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Resolves a list of configured Dependencies to the paths of their
+	 * artifacts or, for Dependencies which are part of the current reactor,
+	 * the output directories of their projects.
+	 *
+	 * @param dependencies
+	 * @return The resolved paths or null if no Dependencies were provided
+	 * @throws DependencyResolutionRequiredException
+	 */
+	@SuppressWarnings("unchecked")
+	private List<String> getDependencyPaths(List<Dependency> dependencies)
+		throws DependencyResolutionRequiredException {
+		if (dependencies != null && !dependencies.isEmpty()) {
+			List<Artifact> compileArtifacts = project.getCompileArtifacts();
+
+			List<String> dependencyClasspathElements = new ArrayList<String>();
+
+			Set<String> artifactIdentifiers = new HashSet<String>();
+
+			for (Dependency curDependency : dependencies) {
+				artifactIdentifiers.add(curDependency.getGroupId() + ":" + curDependency.getArtifactId());
+			}
+
+			for (Artifact curArtifact : compileArtifacts) {
+				String referenceIdentifier = curArtifact.getGroupId() + ":" + curArtifact.getArtifactId();
+
+				if (artifactIdentifiers.contains(referenceIdentifier)) {
+					MavenProject identifiedProject =
+						(MavenProject) project.getProjectReferences().get(referenceIdentifier);
+					if (identifiedProject != null) {
+						dependencyClasspathElements.add(identifiedProject.getBuild().getOutputDirectory());
+						getLog().debug("Resolved " + identifiedProject.getBuild().getOutputDirectory());
+					} else {
+						File file = curArtifact.getFile();
+						if (file == null) {
+							throw new DependencyResolutionRequiredException(curArtifact);
+						}
+						dependencyClasspathElements.add(file.getPath());
+						getLog().debug("Resolved " + file.getPath());
+					}
+				}
+			}
+
+			return dependencyClasspathElements;
+		}
+
+		return null;
+
+	}
+
+	private List<String> getAdditionalFeatures() {
+		if (additionalFeatures == null) {
+			return new ArrayList<String>();
+		}
+
+		return additionalFeatures;
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven;
+
+import java.io.File;
+import java.util.List;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
+import com.citytechinc.cq.component.dialog.widget.WidgetRegistry;
+import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry;
+import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.TouchUIWidgetRegistry;
+
+/**
+ * Writes the generated files of the project's Components into the content
+ * tree only. No package is required and none is read or rewritten, which
+ * suits builds syncing the content tree to a running instance directly.
+ * <p>
+ * The content tree is usually under version control in another module, so it
+ * is never guessed and has to be configured as contentDirectory.
+ */
+@Mojo(name = "component-content", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+	requiresDependencyResolution = ResolutionScope.COMPILE)
+public class ComponentContentMojo extends AbstractComponentMojo {
+
+	@Parameter(required = true)
+	private File contentDirectory;
+
+	@Override
+	protected List<File> generateComponents(List<CtClass> classList, WidgetRegistry widgetRegistry,
+		TouchUIWidgetRegistry touchUIWidgetRegistry, InPlaceEditorRegistry inPlaceEditorRegistry,
+		ClassLoader classLoader, ClassPool classPool, ComponentNameTransformer transformer) throws Exception {
+
+		getLog().debug(" Content tree " + contentDirectory);
+
+		return ComponentMojoUtil.buildContentTreeForProjectAndClassList(classList, widgetRegistry, touchUIWidgetRegistry,
+			inPlaceEditorRegistry, classLoader, classPool, getBuildDirectory(), contentDirectory,
+			getComponentPathBase(), getComponentPathSuffix(), getDefaultComponentGroup(), transformer,
+			isGenerateTouchUiDialogs(), isGenerateClassicUiDialogs());
+	}
+
+}
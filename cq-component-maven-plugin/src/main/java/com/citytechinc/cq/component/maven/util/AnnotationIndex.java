@@ -0,0 +1,122 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.lang.annotation.Annotation;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the classes annotated with one of the annotations the plugin
+ * cares about, keyed by class name and recording the classpath location
+ * (directory or archive) each class was read from.
+ */
+public class AnnotationIndex {
+
+	private final Map<String, String> classNameToSourceMap;
+
+	private final Map<String, Set<String>> annotationToClassNamesMap;
+
+	public AnnotationIndex() {
+		this.classNameToSourceMap = new HashMap<String, String>();
+		this.annotationToClassNamesMap = new HashMap<String, Set<String>>();
+	}
+
+	/**
+	 * Records that a class read from the provided source is annotated with the
+	 * named annotation. As with class loading, the first source a class is
+	 * found in wins and later copies of the same class are ignored.
+	 *
+	 * @param annotationName The fully qualified name of the annotation
+	 * @param className The fully qualified name of the annotated class
+	 * @param source The location the class was read from
+	 */
+	public void addAnnotatedClass(String annotationName, String className, String source) {
+		String existingSource = classNameToSourceMap.get(className);
+
+		if (existingSource != null && !existingSource.equals(source)) {
+			return;
+		}
+
+		classNameToSourceMap.put(className, source);
+
+		Set<String> classNames = annotationToClassNamesMap.get(annotationName);
+
+		if (classNames == null) {
+			classNames = new LinkedHashSet<String>();
+			annotationToClassNamesMap.put(annotationName, classNames);
+		}
+
+		classNames.add(className);
+	}
+
+	/**
+	 * @param annotationClass
+	 * @return The names of all indexed classes annotated with the provided
+	 *         annotation, in the order they were found
+	 */
+	public Set<String> getClassNamesAnnotatedWith(Class<? extends Annotation> annotationClass) {
+		return getClassNamesAnnotatedWith(annotationClass.getName());
+	}
+
+	/**
+	 * @param annotationName The fully qualified name of the annotation
+	 * @return The names of all indexed classes annotated with the named
+	 *         annotation, in the order they were found
+	 */
+	public Set<String> getClassNamesAnnotatedWith(String annotationName) {
+		Set<String> classNames = annotationToClassNamesMap.get(annotationName);
+
+		if (classNames == null) {
+			return Collections.emptySet();
+		}
+
+		return Collections.unmodifiableSet(classNames);
+	}
+
+	/**
+	 * @param annotationClass
+	 * @param sources
+	 * @return The names of all indexed classes annotated with the provided
+	 *         annotation which were read from one of the provided sources
+	 */
+	public Set<String> getClassNamesAnnotatedWith(Class<? extends Annotation> annotationClass,
+		Collection<String> sources) {
+		Set<String> classNames = new LinkedHashSet<String>();
+
+		for (String curClassName : getClassNamesAnnotatedWith(annotationClass)) {
+			if (sources.contains(classNameToSourceMap.get(curClassName))) {
+				classNames.add(curClassName);
+			}
+		}
+
+		return classNames;
+	}
+
+	/**
+	 * @param className
+	 * @return The location the named class was read from or null if the class
+	 *         is not indexed
+	 */
+	public String getSource(String className) {
+		return classNameToSourceMap.get(className);
+	}
+
+}
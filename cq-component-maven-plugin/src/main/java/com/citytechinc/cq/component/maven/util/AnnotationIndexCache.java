@@ -0,0 +1,147 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * A directory of annotation indexes for previously scanned archives. Each
+ * archive's index is stored under the SHA-1 checksum of the archive's
+ * contents, so an archive is only scanned again once its contents change and
+ * identical archives at different locations share a single entry. Entries use
+ * the same format as the prebuilt index resource.
+ * <p>
+ * The name of an entry also contains a key derived from the version of the
+ * entry format and the {@link AnnotationIndexUtil#INDEXED_ANNOTATIONS}, so
+ * entries written by a plugin version which indexed different annotations
+ * are never read and the archive is scanned again.
+ */
+public class AnnotationIndexCache {
+
+	private static final String CACHE_FILE_EXTENSION = ".properties";
+
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	private static final String CACHE_FORMAT_VERSION = "1";
+
+	private static final int FORMAT_KEY_LENGTH = 8;
+
+	private final File cacheDirectory;
+
+	public AnnotationIndexCache(File cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * Reads the cached index of the provided archive into the provided index.
+	 *
+	 * @param checksum The checksum of the archive
+	 * @param source The location the archive's classes are recorded as coming
+	 *            from
+	 * @param annotationIndex
+	 * @return true if a cached index was found, false otherwise
+	 * @throws IOException
+	 */
+	public boolean read(String checksum, String source, AnnotationIndex annotationIndex) throws IOException {
+		File cacheFile = getCacheFile(checksum);
+
+		if (!cacheFile.isFile()) {
+			return false;
+		}
+
+		InputStream cacheInputStream = new FileInputStream(cacheFile);
+		try {
+			AnnotationIndexUtil.readAnnotationIndex(cacheInputStream, source, annotationIndex);
+		} finally {
+			IOUtils.closeQuietly(cacheInputStream);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Stores the index of an archive. The entry is written to a uniquely named
+	 * temporary file first and then moved in place so that builds sharing a
+	 * cache directory never read or write a partially written entry.
+	 *
+	 * @param checksum The checksum of the archive
+	 * @param annotationIndex An index containing only the archive's classes
+	 * @throws IOException
+	 */
+	public void write(String checksum, AnnotationIndex annotationIndex) throws IOException {
+		File cacheFile = getCacheFile(checksum);
+
+		cacheDirectory.mkdirs();
+
+		File tempFile = File.createTempFile(checksum, TEMP_FILE_SUFFIX, cacheDirectory);
+
+		OutputStream cacheOutputStream = new FileOutputStream(tempFile);
+		try {
+			AnnotationIndexUtil.writeAnnotationIndex(annotationIndex, cacheOutputStream);
+		} finally {
+			IOUtils.closeQuietly(cacheOutputStream);
+		}
+
+		if (!tempFile.renameTo(cacheFile)) {
+			FileUtils.deleteQuietly(tempFile);
+		}
+	}
+
+	/**
+	 * Computes the checksum under which the index of an archive is cached.
+	 *
+	 * @param archive
+	 * @return The hex encoded SHA-1 checksum of the archive
+	 * @throws IOException
+	 */
+	public static String getChecksum(File archive) throws IOException {
+		return ChecksumUtil.getChecksum(archive);
+	}
+
+	private File getCacheFile(String checksum) throws IOException {
+		return new File(cacheDirectory, checksum + "-" + getFormatKey() + CACHE_FILE_EXTENSION);
+	}
+
+	/**
+	 * Computes the key identifying the format of the entries and the
+	 * annotations they were indexed for.
+	 *
+	 * @return The start of the checksum of the format version and the sorted
+	 *         names of the indexed annotations
+	 * @throws IOException
+	 */
+	protected static String getFormatKey() throws IOException {
+		List<String> annotationNames = new ArrayList<String>(AnnotationIndexUtil.INDEXED_ANNOTATIONS);
+		Collections.sort(annotationNames);
+
+		String format = CACHE_FORMAT_VERSION + ":" + StringUtils.join(annotationNames.iterator(), ",");
+
+		return ChecksumUtil.getChecksum(format.getBytes("UTF-8")).substring(0, FORMAT_KEY_LENGTH);
+	}
+
+}
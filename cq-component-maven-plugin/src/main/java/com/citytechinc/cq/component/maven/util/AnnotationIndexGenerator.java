@@ -0,0 +1,69 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes a prebuilt annotation index for a class directory to
+ * {@link AnnotationIndexUtil#INDEX_RESOURCE_PATH} within that directory. The
+ * plugin runs this against its own classes during the process-classes phase
+ * so that the built in Widgets, In Place Editors and Transformers do not need
+ * to be scanned for on every build. Jars providing custom Widgets may run it
+ * the same way.
+ * <p>
+ * The index records the number of classes in the directory. It is only used
+ * for an archive containing exactly that many classes, so an index carried
+ * into a shaded or repackaged jar is ignored and that jar is scanned.
+ */
+public class AnnotationIndexGenerator {
+
+	private AnnotationIndexGenerator() {
+	}
+
+	/**
+	 * @param args A single argument, the class directory to index
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			throw new IllegalArgumentException("Usage: AnnotationIndexGenerator <class directory>");
+		}
+
+		File classDirectory = new File(args[0]);
+
+		AnnotationIndex annotationIndex =
+			AnnotationIndexUtil.buildAnnotationIndex(Collections.singletonList(classDirectory.toURI().toURL()));
+
+		File indexFile = new File(classDirectory, AnnotationIndexUtil.INDEX_RESOURCE_PATH);
+		indexFile.getParentFile().mkdirs();
+
+		OutputStream indexOutputStream = new FileOutputStream(indexFile);
+		try {
+			AnnotationIndexUtil.writeAnnotationIndex(annotationIndex,
+				AnnotationIndexUtil.countDirectoryClasses(classDirectory), indexOutputStream);
+		} finally {
+			IOUtils.closeQuietly(indexOutputStream);
+		}
+	}
+
+}
@@ -0,0 +1,394 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javassist.bytecode.AnnotationsAttribute;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.annotation.Annotation;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.util.StringUtils;
+
+import com.citytechinc.cq.component.annotations.Component;
+import com.citytechinc.cq.component.annotations.config.InPlaceEditor;
+import com.citytechinc.cq.component.annotations.config.TouchUIWidget;
+import com.citytechinc.cq.component.annotations.config.Widget;
+import com.citytechinc.cq.component.annotations.transformer.Transformer;
+
+/**
+ * Builds an {@link AnnotationIndex} by reading the class files found in a set
+ * of directories and archives exactly once. Class files are parsed with
+ * javassist's bytecode API rather than loaded, and both runtime visible and
+ * invisible annotations are considered as the plugin's annotations are
+ * retained in the class file only.
+ * <p>
+ * Archives which ship a prebuilt index at {@link #INDEX_RESOURCE_PATH} are not
+ * scanned. The contents of their index are used instead, provided the number
+ * of classes recorded in the index matches the number of classes in the
+ * archive. An archive whose classes were repackaged, for example by shading,
+ * is scanned as though it had no index. The indexes of other archives may be
+ * kept in an {@link AnnotationIndexCache} between builds. Class directories
+ * are always scanned.
+ */
+public class AnnotationIndexUtil {
+
+	private static final String CLASS_FILE_EXTENSION = ".class";
+
+	private static final String INDEX_CLASS_NAME_SEPARATOR = ",";
+
+	private static final String INDEX_CLASS_COUNT_PROPERTY = "classCount";
+
+	public static final String INDEX_RESOURCE_PATH = "META-INF/cq-component/annotation-index.properties";
+
+	public static final Set<String> INDEXED_ANNOTATIONS = new HashSet<String>(Arrays.asList(
+		Component.class.getName(), Widget.class.getName(), TouchUIWidget.class.getName(),
+		InPlaceEditor.class.getName(), Transformer.class.getName()));
+
+	private AnnotationIndexUtil() {
+	}
+
+	public static final LogSingleton getLog() {
+		return LogSingleton.getInstance();
+	}
+
+	/**
+	 * Constructs an index of the classes within the provided locations which
+	 * are annotated with one of the {@link #INDEXED_ANNOTATIONS}. Locations
+	 * which do not exist are skipped.
+	 *
+	 * @param locations URLs of class directories and archives
+	 * @return The constructed index
+	 * @throws IOException
+	 */
+	public static AnnotationIndex buildAnnotationIndex(Collection<URL> locations) throws IOException {
+		return buildAnnotationIndex(locations, null);
+	}
+
+	/**
+	 * Constructs an index of the classes within the provided locations which
+	 * are annotated with one of the {@link #INDEXED_ANNOTATIONS}, reusing and
+	 * updating the cached indexes of archives. Locations which do not exist
+	 * are skipped.
+	 *
+	 * @param locations URLs of class directories and archives
+	 * @param annotationIndexCache The cache of archive indexes or null if
+	 *            archives should always be scanned
+	 * @return The constructed index
+	 * @throws IOException
+	 */
+	public static AnnotationIndex buildAnnotationIndex(Collection<URL> locations,
+		AnnotationIndexCache annotationIndexCache) throws IOException {
+		AnnotationIndex annotationIndex = new AnnotationIndex();
+
+		for (URL curLocation : locations) {
+			File locationFile = getFileForLocation(curLocation);
+			String source = curLocation.toExternalForm();
+
+			if (locationFile.isDirectory()) {
+				getLog().debug("Indexing class directory " + locationFile);
+				indexDirectory(locationFile, source, annotationIndex);
+			} else if (locationFile.isFile()) {
+				getLog().debug("Indexing archive " + locationFile);
+				indexArchive(locationFile, source, annotationIndex, annotationIndexCache);
+			} else {
+				getLog().debug("Skipping missing classpath location " + locationFile);
+			}
+		}
+
+		return annotationIndex;
+	}
+
+	private static void indexDirectory(File directory, String source, AnnotationIndex annotationIndex)
+		throws IOException {
+		File[] children = directory.listFiles();
+
+		if (children == null) {
+			return;
+		}
+
+		for (File curChild : children) {
+			if (curChild.isDirectory()) {
+				indexDirectory(curChild, source, annotationIndex);
+			} else if (curChild.getName().endsWith(CLASS_FILE_EXTENSION)) {
+				InputStream classInputStream = new FileInputStream(curChild);
+				try {
+					indexClass(classInputStream, source, annotationIndex);
+				} finally {
+					IOUtils.closeQuietly(classInputStream);
+				}
+			}
+		}
+	}
+
+	private static void indexArchive(File archive, String source, AnnotationIndex annotationIndex,
+		AnnotationIndexCache annotationIndexCache) throws IOException {
+		ZipFile zipFile = new ZipFile(archive);
+
+		try {
+			ZipEntry indexEntry = zipFile.getEntry(INDEX_RESOURCE_PATH);
+
+			if (indexEntry != null) {
+				Properties indexProperties = new Properties();
+				InputStream indexInputStream = zipFile.getInputStream(indexEntry);
+				try {
+					indexProperties.load(indexInputStream);
+				} finally {
+					IOUtils.closeQuietly(indexInputStream);
+				}
+
+				if (String.valueOf(countArchiveClasses(zipFile)).equals(
+					indexProperties.getProperty(INDEX_CLASS_COUNT_PROPERTY))) {
+					getLog().debug("Using prebuilt annotation index of " + archive);
+					addIndexedClasses(indexProperties, source, annotationIndex);
+					return;
+				}
+
+				getLog().debug("Ignoring prebuilt annotation index of " + archive
+					+ " as it does not match the classes of the archive");
+			}
+
+			if (annotationIndexCache == null) {
+				indexArchiveClasses(zipFile, source, annotationIndex);
+				return;
+			}
+
+			String checksum = AnnotationIndexCache.getChecksum(archive);
+
+			if (annotationIndexCache.read(checksum, source, annotationIndex)) {
+				getLog().debug("Using cached annotation index of " + archive);
+				return;
+			}
+
+			AnnotationIndex archiveIndex = new AnnotationIndex();
+			indexArchiveClasses(zipFile, source, archiveIndex);
+			try {
+				annotationIndexCache.write(checksum, archiveIndex);
+			} catch (IOException e) {
+				getLog().warn("Unable to cache the annotation index of " + archive + ": " + e.getMessage());
+			}
+
+			for (String curAnnotationName : INDEXED_ANNOTATIONS) {
+				for (String curClassName : archiveIndex.getClassNamesAnnotatedWith(curAnnotationName)) {
+					annotationIndex.addAnnotatedClass(curAnnotationName, curClassName, source);
+				}
+			}
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	private static int countArchiveClasses(ZipFile zipFile) {
+		int classCount = 0;
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+		while (entries.hasMoreElements()) {
+			ZipEntry curEntry = entries.nextElement();
+
+			if (!curEntry.isDirectory() && curEntry.getName().endsWith(CLASS_FILE_EXTENSION)) {
+				classCount++;
+			}
+		}
+
+		return classCount;
+	}
+
+	/**
+	 * Counts the class files within the provided directory and its
+	 * subdirectories.
+	 *
+	 * @param directory
+	 * @return The number of class files
+	 */
+	public static int countDirectoryClasses(File directory) {
+		File[] children = directory.listFiles();
+
+		if (children == null) {
+			return 0;
+		}
+
+		int classCount = 0;
+
+		for (File curChild : children) {
+			if (curChild.isDirectory()) {
+				classCount += countDirectoryClasses(curChild);
+			} else if (curChild.getName().endsWith(CLASS_FILE_EXTENSION)) {
+				classCount++;
+			}
+		}
+
+		return classCount;
+	}
+
+	private static void indexArchiveClasses(ZipFile zipFile, String source, AnnotationIndex annotationIndex)
+		throws IOException {
+		Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+		while (entries.hasMoreElements()) {
+			ZipEntry curEntry = entries.nextElement();
+
+			if (!curEntry.isDirectory() && curEntry.getName().endsWith(CLASS_FILE_EXTENSION)) {
+				InputStream classInputStream = zipFile.getInputStream(curEntry);
+				try {
+					indexClass(classInputStream, source, annotationIndex);
+				} finally {
+					IOUtils.closeQuietly(classInputStream);
+				}
+			}
+		}
+	}
+
+	private static void indexClass(InputStream classInputStream, String source, AnnotationIndex annotationIndex)
+		throws IOException {
+		ClassFile classFile = new ClassFile(new DataInputStream(new BufferedInputStream(classInputStream)));
+
+		indexAnnotations((AnnotationsAttribute) classFile.getAttribute(AnnotationsAttribute.invisibleTag),
+			classFile.getName(), source, annotationIndex);
+		indexAnnotations((AnnotationsAttribute) classFile.getAttribute(AnnotationsAttribute.visibleTag),
+			classFile.getName(), source, annotationIndex);
+	}
+
+	private static void indexAnnotations(AnnotationsAttribute annotationsAttribute, String className,
+		String source, AnnotationIndex annotationIndex) {
+		if (annotationsAttribute == null) {
+			return;
+		}
+
+		for (Annotation curAnnotation : annotationsAttribute.getAnnotations()) {
+			if (INDEXED_ANNOTATIONS.contains(curAnnotation.getTypeName())) {
+				annotationIndex.addAnnotatedClass(curAnnotation.getTypeName(), className, source);
+			}
+		}
+	}
+
+	/**
+	 * Reads a prebuilt index, as written by
+	 * {@link #writeAnnotationIndex(AnnotationIndex, OutputStream)}, into the
+	 * provided index, recording all of its classes as coming from the provided
+	 * source.
+	 *
+	 * @param indexInputStream
+	 * @param source
+	 * @param annotationIndex
+	 * @throws IOException
+	 */
+	public static void readAnnotationIndex(InputStream indexInputStream, String source,
+		AnnotationIndex annotationIndex) throws IOException {
+		Properties indexProperties = new Properties();
+		indexProperties.load(indexInputStream);
+
+		addIndexedClasses(indexProperties, source, annotationIndex);
+	}
+
+	private static void addIndexedClasses(Properties indexProperties, String source,
+		AnnotationIndex annotationIndex) {
+		for (String curAnnotationName : INDEXED_ANNOTATIONS) {
+			String classNames = indexProperties.getProperty(curAnnotationName);
+
+			if (StringUtils.isNotBlank(classNames)) {
+				for (String curClassName : classNames.split(INDEX_CLASS_NAME_SEPARATOR)) {
+					if (StringUtils.isNotBlank(curClassName)) {
+						annotationIndex.addAnnotatedClass(curAnnotationName, curClassName.trim(), source);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the provided index in the properties format read by
+	 * {@link #readAnnotationIndex(InputStream, String, AnnotationIndex)}. Each
+	 * indexed annotation is written, even when no classes are annotated with
+	 * it, and annotations and class names are sorted so that the output is
+	 * stable between builds.
+	 *
+	 * @param annotationIndex
+	 * @param indexOutputStream
+	 * @throws IOException
+	 */
+	public static void writeAnnotationIndex(AnnotationIndex annotationIndex, OutputStream indexOutputStream)
+		throws IOException {
+		writeAnnotationIndex(annotationIndex, -1, indexOutputStream);
+	}
+
+	/**
+	 * Writes the provided index as a prebuilt index for an archive containing
+	 * the provided number of classes. The class count is compared against the
+	 * archive when the index is read so that an index which was copied into a
+	 * different archive is not trusted.
+	 *
+	 * @param annotationIndex
+	 * @param classCount The number of classes in the indexed archive or a
+	 *            negative number if the index is not bound to an archive
+	 * @param indexOutputStream
+	 * @throws IOException
+	 */
+	public static void writeAnnotationIndex(AnnotationIndex annotationIndex, int classCount,
+		OutputStream indexOutputStream) throws IOException {
+		Writer writer = new OutputStreamWriter(indexOutputStream, "ISO-8859-1");
+
+		List<String> annotationNames = new ArrayList<String>(INDEXED_ANNOTATIONS);
+		Collections.sort(annotationNames);
+
+		writer.write("#Generated by the cq-component-maven-plugin\n");
+
+		if (classCount >= 0) {
+			writer.write(INDEX_CLASS_COUNT_PROPERTY + "=" + classCount + "\n");
+		}
+
+		for (String curAnnotationName : annotationNames) {
+			List<String> classNames =
+				new ArrayList<String>(annotationIndex.getClassNamesAnnotatedWith(curAnnotationName));
+			Collections.sort(classNames);
+
+			writer.write(curAnnotationName + "=" + StringUtils.join(classNames.iterator(), INDEX_CLASS_NAME_SEPARATOR)
+				+ "\n");
+		}
+
+		writer.flush();
+	}
+
+	private static File getFileForLocation(URL location) {
+		try {
+			return new File(location.toURI());
+		} catch (URISyntaxException e) {
+			return new File(location.getPath());
+		}
+	}
+
+}
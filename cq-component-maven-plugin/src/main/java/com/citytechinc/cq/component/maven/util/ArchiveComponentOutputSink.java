@@ -0,0 +1,274 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+
+import javassist.CtClass;
+import javassist.NotFoundException;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
+import com.citytechinc.cq.component.dialog.exception.OutputFailureException;
+
+/**
+ * Writes generated files as entries of the package archive, at a path
+ * determined by the class of the Component. Files which already exist within
+ * the archive are left untouched. Each file may additionally be handed to a
+ * second sink, such as a {@link DirectoryComponentOutputSink}, which keeps an
+ * exploded copy of the generated files.
+ * <p>
+ * When constructed with a compression executor, entries are deflated by the
+ * executor's threads and appended to the archive already compressed. Entries
+ * are always appended in the order they were written, so the archive is the
+ * same whether or not compression happens in parallel. {@link #finish()} must
+ * be called once all files have been written.
+ * <p>
+ * Each entry is given the last modified time of the class file of its
+ * Component rather than the time of the build, so building the same classes
+ * again produces the same archive.
+ */
+public class ArchiveComponentOutputSink implements ComponentOutputSink {
+
+	private final ComponentNameTransformer transformer;
+	private final ZipArchiveOutputStream archiveStream;
+	private final Set<String> reservedNames;
+	private final String componentPathBase;
+	private final String defaultComponentPathSuffix;
+	private final ComponentOutputSink copySink;
+	private final ExecutorService compressionExecutor;
+	private final int compressionLevel;
+
+	/**
+	 * The earliest time a zip entry can record, used when the time of a class
+	 * file can not be determined
+	 */
+	private static final long DEFAULT_ENTRY_TIME = new GregorianCalendar(1980, Calendar.FEBRUARY, 1).getTimeInMillis();
+
+	private final Map<String, Long> entryTimes = new HashMap<String, Long>();
+
+	private final LinkedList<Future<CompressedEntry>> pendingEntries = new LinkedList<Future<CompressedEntry>>();
+
+	/**
+	 *
+	 * @param transformer
+	 * @param archiveStream
+	 * @param reservedNames The lower cased names of the entries which already
+	 *            exist within the archive
+	 * @param componentPathBase
+	 * @param defaultComponentPathSuffix
+	 * @param copySink A sink receiving a copy of every file written or null
+	 *            if no copy should be kept
+	 */
+	public ArchiveComponentOutputSink(ComponentNameTransformer transformer, ZipArchiveOutputStream archiveStream,
+		Set<String> reservedNames, String componentPathBase, String defaultComponentPathSuffix,
+		ComponentOutputSink copySink) {
+		this(transformer, archiveStream, reservedNames, componentPathBase, defaultComponentPathSuffix, copySink, null,
+			Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 *
+	 * @param transformer
+	 * @param archiveStream
+	 * @param reservedNames The lower cased names of the entries which already
+	 *            exist within the archive
+	 * @param componentPathBase
+	 * @param defaultComponentPathSuffix
+	 * @param copySink A sink receiving a copy of every file written or null
+	 *            if no copy should be kept
+	 * @param compressionExecutor The executor deflating entries or null if
+	 *            entries should be deflated by the archive stream as they are
+	 *            written
+	 * @param compressionLevel The deflate level used by the compression
+	 *            executor
+	 */
+	public ArchiveComponentOutputSink(ComponentNameTransformer transformer, ZipArchiveOutputStream archiveStream,
+		Set<String> reservedNames, String componentPathBase, String defaultComponentPathSuffix,
+		ComponentOutputSink copySink, ExecutorService compressionExecutor, int compressionLevel) {
+		this.transformer = transformer;
+		this.archiveStream = archiveStream;
+		this.reservedNames = reservedNames;
+		this.componentPathBase = componentPathBase;
+		this.defaultComponentPathSuffix = defaultComponentPathSuffix;
+		this.copySink = copySink;
+		this.compressionExecutor = compressionExecutor;
+		this.compressionLevel = compressionLevel;
+	}
+
+	@Override
+	public void write(CtClass componentClass, String fileName, byte[] content) throws IOException,
+		OutputFailureException, ClassNotFoundException {
+		if (copySink != null) {
+			copySink.write(componentClass, fileName, content);
+		}
+
+		String entryPath =
+			ComponentMojoUtil.getComponentPathForComponentClass(transformer, componentClass, componentPathBase,
+				defaultComponentPathSuffix) + "/" + fileName;
+
+		if (!reservedNames.contains(entryPath.toLowerCase())) {
+			ZipArchiveEntry entry = new ZipArchiveEntry(entryPath);
+			entry.setSize(content.length);
+			entry.setTime(getEntryTime(componentClass));
+
+			if (compressionExecutor != null) {
+				pendingEntries.add(compressionExecutor.submit(new CompressionTask(entry, content, compressionLevel)));
+				writeCompressedEntries(false);
+			} else {
+				archiveStream.putArchiveEntry(entry);
+				archiveStream.write(content);
+				archiveStream.closeArchiveEntry();
+			}
+		} else {
+			ComponentMojoUtil.getLog().debug("Existing file found at " + entryPath);
+		}
+	}
+
+	/**
+	 * Waits for the entries still being compressed and appends them to the
+	 * archive.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		writeCompressedEntries(true);
+	}
+
+	/**
+	 * Determines the time of the entries written for a Component from the
+	 * last modified time of its class file, as reported by the directory or
+	 * archive the class was loaded from.
+	 */
+	private long getEntryTime(CtClass componentClass) throws IOException {
+		Long entryTime = entryTimes.get(componentClass.getName());
+
+		if (entryTime == null) {
+			entryTime = DEFAULT_ENTRY_TIME;
+
+			try {
+				URL classUrl = componentClass.getURL();
+				long lastModified = classUrl.openConnection().getLastModified();
+				if (lastModified > DEFAULT_ENTRY_TIME) {
+					entryTime = lastModified;
+				}
+			} catch (NotFoundException e) {
+				ComponentMojoUtil.getLog().debug("Class file of " + componentClass.getName() + " not found");
+			}
+
+			entryTimes.put(componentClass.getName(), entryTime);
+		}
+
+		return entryTime;
+	}
+
+	/**
+	 * Appends compressed entries to the archive in the order they were
+	 * written, stopping at the first entry which is still being compressed
+	 * unless asked to wait for it.
+	 */
+	private void writeCompressedEntries(boolean wait) throws IOException {
+		while (!pendingEntries.isEmpty() && (wait || pendingEntries.getFirst().isDone())) {
+			CompressedEntry compressedEntry = getCompressedEntry(pendingEntries.removeFirst());
+
+			archiveStream.addRawArchiveEntry(compressedEntry.entry, new ByteArrayInputStream(
+				compressedEntry.compressedContent));
+		}
+	}
+
+	private static CompressedEntry getCompressedEntry(Future<CompressedEntry> pendingEntry) throws IOException {
+		try {
+			return pendingEntry.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing archive entries", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException("Exception encountered compressing archive entry", e.getCause());
+		}
+	}
+
+	/**
+	 * Deflates the content of an entry, recording the sizes and checksum the
+	 * archive needs to store the entry as is.
+	 */
+	private static class CompressionTask implements Callable<CompressedEntry> {
+		private final ZipArchiveEntry entry;
+		private final byte[] content;
+		private final int level;
+
+		private CompressionTask(ZipArchiveEntry entry, byte[] content, int level) {
+			this.entry = entry;
+			this.content = content;
+			this.level = level;
+		}
+
+		@Override
+		public CompressedEntry call() throws IOException {
+			Deflater deflater = new Deflater(level, true);
+			ByteArrayOutputStream compressedOutputStream = new ByteArrayOutputStream(content.length / 2 + 64);
+
+			try {
+				DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(compressedOutputStream, deflater);
+				deflaterOutputStream.write(content);
+				deflaterOutputStream.finish();
+			} finally {
+				deflater.end();
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(content);
+
+			entry.setMethod(ZipEntry.DEFLATED);
+			entry.setCrc(crc.getValue());
+			entry.setCompressedSize(compressedOutputStream.size());
+
+			return new CompressedEntry(entry, compressedOutputStream.toByteArray());
+		}
+	}
+
+	private static class CompressedEntry {
+		private final ZipArchiveEntry entry;
+		private final byte[] compressedContent;
+
+		private CompressedEntry(ZipArchiveEntry entry, byte[] compressedContent) {
+			this.entry = entry;
+			this.compressedContent = compressedContent;
+		}
+	}
+
+}
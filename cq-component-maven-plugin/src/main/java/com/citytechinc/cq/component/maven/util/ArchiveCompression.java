@@ -0,0 +1,121 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+
+/**
+ * Determines how the entries of the rewritten package archive are compressed.
+ * A compression is named by one of
+ * <ul>
+ * <li>{@value #KEEP} - entries copied from the existing archive keep the
+ * method they are stored with and generated entries are deflated at the
+ * default level</li>
+ * <li>{@value #STORED} - all entries are stored without compression</li>
+ * <li>a deflate level from 0 to 9 - all entries are deflated at that level</li>
+ * </ul>
+ */
+public class ArchiveCompression {
+
+	public static final String KEEP = "keep";
+
+	public static final String STORED = "stored";
+
+	private static final ArchiveCompression KEEP_COMPRESSION = new ArchiveCompression(true, ZipEntry.DEFLATED,
+		Deflater.DEFAULT_COMPRESSION);
+
+	private static final ArchiveCompression STORED_COMPRESSION = new ArchiveCompression(false, ZipEntry.STORED,
+		Deflater.DEFAULT_COMPRESSION);
+
+	private final boolean sourceMethodKept;
+	private final int method;
+	private final int level;
+
+	private ArchiveCompression(boolean sourceMethodKept, int method, int level) {
+		this.sourceMethodKept = sourceMethodKept;
+		this.method = method;
+		this.level = level;
+	}
+
+	/**
+	 *
+	 * @param name
+	 * @return The compression of the provided name, {@value #KEEP} if the name
+	 *         is empty
+	 * @throws IllegalArgumentException if the name is neither {@value #KEEP},
+	 *             {@value #STORED} nor a deflate level
+	 */
+	public static ArchiveCompression forName(String name) {
+		if (name == null || name.trim().length() == 0 || KEEP.equalsIgnoreCase(name.trim())) {
+			return KEEP_COMPRESSION;
+		}
+
+		if (STORED.equalsIgnoreCase(name.trim())) {
+			return STORED_COMPRESSION;
+		}
+
+		try {
+			int level = Integer.parseInt(name.trim());
+			if (level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION) {
+				return new ArchiveCompression(false, ZipEntry.DEFLATED, level);
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+
+		throw new IllegalArgumentException("Unknown archive compression " + name + ", expected " + KEEP + ", "
+			+ STORED + " or a deflate level from " + Deflater.NO_COMPRESSION + " to " + Deflater.BEST_COMPRESSION);
+	}
+
+	/**
+	 *
+	 * @return The compression method of generated entries
+	 */
+	public int getMethod() {
+		return method;
+	}
+
+	/**
+	 *
+	 * @return The deflate level of deflated entries
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Determines whether an entry of the existing archive has to be
+	 * decompressed and compressed again or may be copied as it is stored.
+	 *
+	 * @param sourceEntry
+	 * @return true if the entry has to be compressed again
+	 */
+	public boolean isRecompressionRequired(ZipArchiveEntry sourceEntry) {
+		if (sourceMethodKept) {
+			return false;
+		}
+
+		if (method == ZipEntry.STORED) {
+			return sourceEntry.getMethod() != ZipEntry.STORED;
+		}
+
+		return true;
+	}
+
+}
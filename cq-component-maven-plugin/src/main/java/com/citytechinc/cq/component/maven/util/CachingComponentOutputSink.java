@@ -0,0 +1,46 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.IOException;
+
+import javassist.CtClass;
+
+import com.citytechinc.cq.component.dialog.exception.OutputFailureException;
+
+/**
+ * Passes generated files on to another output sink and keeps a copy of each
+ * of them in a {@link ComponentBuildState} for reuse by the next build.
+ */
+public class CachingComponentOutputSink implements ComponentOutputSink {
+
+	private final ComponentOutputSink outputSink;
+	private final ComponentBuildState buildState;
+
+	public CachingComponentOutputSink(ComponentOutputSink outputSink, ComponentBuildState buildState) {
+		this.outputSink = outputSink;
+		this.buildState = buildState;
+	}
+
+	@Override
+	public void write(CtClass componentClass, String fileName, byte[] content) throws IOException,
+		OutputFailureException, ClassNotFoundException {
+		outputSink.write(componentClass, fileName, content);
+
+		buildState.addOutput(componentClass.getName(), fileName, content);
+	}
+
+}
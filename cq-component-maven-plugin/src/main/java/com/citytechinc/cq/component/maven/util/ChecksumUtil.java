@@ -0,0 +1,101 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Computes the hex encoded SHA-1 checksums used to tell whether files and
+ * generated content have changed between builds.
+ */
+public class ChecksumUtil {
+
+	private static final String CHECKSUM_ALGORITHM = "SHA-1";
+
+	private ChecksumUtil() {
+	}
+
+	/**
+	 *
+	 * @param file
+	 * @return The checksum of the file's contents
+	 * @throws IOException
+	 */
+	public static String getChecksum(File file) throws IOException {
+		MessageDigest messageDigest = getMessageDigest();
+
+		InputStream fileInputStream = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = fileInputStream.read(buffer)) != -1) {
+				messageDigest.update(buffer, 0, read);
+			}
+		} finally {
+			IOUtils.closeQuietly(fileInputStream);
+		}
+
+		return toHex(messageDigest.digest());
+	}
+
+	/**
+	 *
+	 * @param content
+	 * @return The checksum of the content
+	 * @throws IOException
+	 */
+	public static String getChecksum(byte[] content) throws IOException {
+		MessageDigest messageDigest = getMessageDigest();
+		messageDigest.update(content);
+		return toHex(messageDigest.digest());
+	}
+
+	/**
+	 *
+	 * @return A new digest of the algorithm used for all checksums
+	 * @throws IOException
+	 */
+	public static MessageDigest getMessageDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(CHECKSUM_ALGORITHM + " is not available", e);
+		}
+	}
+
+	/**
+	 *
+	 * @param digest
+	 * @return The hex encoded digest
+	 */
+	public static String toHex(byte[] digest) {
+		StringBuilder checksum = new StringBuilder();
+
+		for (byte curByte : digest) {
+			checksum.append(String.format("%02x", curByte));
+		}
+
+		return checksum.toString();
+	}
+
+}
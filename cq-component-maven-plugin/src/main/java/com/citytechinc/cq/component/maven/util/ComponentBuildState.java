@@ -0,0 +1,288 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javassist.CtClass;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.util.StringUtils;
+
+import com.citytechinc.cq.component.dialog.exception.OutputFailureException;
+
+/**
+ * The state kept between builds to generate only the Components whose inputs
+ * changed. For each Component the state records the fingerprint of its inputs,
+ * as computed by {@link ComponentFingerprintUtil}, the classes it was found to
+ * depend on by the {@link ComponentDependencyTracker}, and a copy of each file
+ * generated for it. The state as a whole is tied to a configuration
+ * fingerprint and is discarded once the configuration changes.
+ * <p>
+ * The state file is removed when the state is read and only written again
+ * once a build completes, so a failed build is followed by a full
+ * regeneration.
+ */
+public class ComponentBuildState {
+
+	public static final String STATE_DIRECTORY_NAME = "cq-component-build-state";
+
+	private static final String STATE_FILE_NAME = "state.properties";
+
+	private static final String OUTPUTS_DIRECTORY_NAME = "outputs";
+
+	private static final String CONFIGURATION_KEY = "configuration";
+
+	private static final String COMPONENT_KEY_PREFIX = "component.";
+
+	private static final String DEPENDENCIES_KEY_PREFIX = "dependencies.";
+
+	private static final String DEPENDENCY_SEPARATOR = ",";
+
+	private final File stateDirectory;
+
+	private final String configurationFingerprint;
+
+	private final Map<String, String> previousFingerprints;
+
+	private final Map<String, Set<String>> previousDependencies;
+
+	private final Map<String, String> currentFingerprints = new TreeMap<String, String>();
+
+	private final Map<String, Set<String>> currentDependencies = new HashMap<String, Set<String>>();
+
+	private ComponentBuildState(File stateDirectory, String configurationFingerprint,
+		Map<String, String> previousFingerprints, Map<String, Set<String>> previousDependencies) {
+		this.stateDirectory = stateDirectory;
+		this.configurationFingerprint = configurationFingerprint;
+		this.previousFingerprints = previousFingerprints;
+		this.previousDependencies = previousDependencies;
+	}
+
+	/**
+	 * Reads the state of the previous build and removes its state file. The
+	 * fingerprints of the previous build are only kept if it was run with the
+	 * same configuration.
+	 *
+	 * @param stateDirectory
+	 * @param configurationFingerprint
+	 * @return The state
+	 * @throws IOException
+	 */
+	public static ComponentBuildState read(File stateDirectory, String configurationFingerprint)
+		throws IOException {
+		Map<String, String> previousFingerprints = new HashMap<String, String>();
+		Map<String, Set<String>> previousDependencies = new HashMap<String, Set<String>>();
+
+		File stateFile = new File(stateDirectory, STATE_FILE_NAME);
+
+		if (stateFile.isFile()) {
+			Properties stateProperties = new Properties();
+
+			InputStream stateInputStream = new FileInputStream(stateFile);
+			try {
+				stateProperties.load(stateInputStream);
+			} finally {
+				IOUtils.closeQuietly(stateInputStream);
+			}
+
+			FileUtils.forceDelete(stateFile);
+
+			if (configurationFingerprint.equals(stateProperties.getProperty(CONFIGURATION_KEY))) {
+				for (String curKey : stateProperties.stringPropertyNames()) {
+					if (curKey.startsWith(COMPONENT_KEY_PREFIX)) {
+						previousFingerprints.put(curKey.substring(COMPONENT_KEY_PREFIX.length()),
+							stateProperties.getProperty(curKey));
+					} else if (curKey.startsWith(DEPENDENCIES_KEY_PREFIX)) {
+						Set<String> dependencies = new TreeSet<String>();
+						for (String curDependency : stateProperties.getProperty(curKey).split(DEPENDENCY_SEPARATOR)) {
+							if (StringUtils.isNotBlank(curDependency)) {
+								dependencies.add(curDependency.trim());
+							}
+						}
+						previousDependencies.put(curKey.substring(DEPENDENCIES_KEY_PREFIX.length()), dependencies);
+					}
+				}
+			} else {
+				ComponentMojoUtil.getLog().info("Component build configuration changed, regenerating all components");
+			}
+		}
+
+		return new ComponentBuildState(stateDirectory, configurationFingerprint, previousFingerprints,
+			previousDependencies);
+	}
+
+	/**
+	 *
+	 * @param componentClassName
+	 * @return The names of the classes the Component depended on in the
+	 *         previous build
+	 */
+	public Set<String> getDependencies(String componentClassName) {
+		Set<String> dependencies = previousDependencies.get(componentClassName);
+
+		if (dependencies == null) {
+			return Collections.emptySet();
+		}
+
+		return Collections.unmodifiableSet(dependencies);
+	}
+
+	/**
+	 *
+	 * @param componentClassName
+	 * @param fingerprint
+	 * @return true if the Component was generated by the previous build from
+	 *         inputs with the same fingerprint and its files are available
+	 */
+	public boolean isUpToDate(String componentClassName, String fingerprint) {
+		return fingerprint != null && fingerprint.equals(previousFingerprints.get(componentClassName))
+			&& getOutputsDirectory(componentClassName).isDirectory();
+	}
+
+	/**
+	 * Writes the files generated for the Component by the previous build to
+	 * the provided output sink and keeps them, along with the Component's
+	 * dependencies, for the next build.
+	 *
+	 * @param componentClass
+	 * @param fingerprint
+	 * @param outputSink
+	 * @throws IOException
+	 * @throws OutputFailureException
+	 * @throws ClassNotFoundException
+	 */
+	public void reuseOutputs(CtClass componentClass, String fingerprint, ComponentOutputSink outputSink)
+		throws IOException, OutputFailureException, ClassNotFoundException {
+		File[] outputFiles = getOutputsDirectory(componentClass.getName()).listFiles();
+
+		if (outputFiles != null) {
+			Arrays.sort(outputFiles);
+			for (File curOutputFile : outputFiles) {
+				outputSink.write(componentClass, curOutputFile.getName(), FileUtils.readFileToByteArray(curOutputFile));
+			}
+		}
+
+		currentFingerprints.put(componentClass.getName(), fingerprint);
+		currentDependencies.put(componentClass.getName(), getDependencies(componentClass.getName()));
+	}
+
+	/**
+	 * Discards the files of the previous build for a Component which is about
+	 * to be generated.
+	 *
+	 * @param componentClassName
+	 * @throws IOException
+	 */
+	public void startComponent(String componentClassName) throws IOException {
+		File outputsDirectory = getOutputsDirectory(componentClassName);
+
+		if (outputsDirectory.exists()) {
+			FileUtils.deleteDirectory(outputsDirectory);
+		}
+	}
+
+	/**
+	 * Keeps a file generated for a Component for the next build.
+	 *
+	 * @param componentClassName
+	 * @param fileName
+	 * @param content
+	 * @throws IOException
+	 */
+	public void addOutput(String componentClassName, String fileName, byte[] content) throws IOException {
+		FileUtils.writeByteArrayToFile(new File(getOutputsDirectory(componentClassName), fileName), content);
+	}
+
+	/**
+	 * Records the fingerprint and the dependencies of a Component once it has
+	 * been generated, so that its files can be reused by the next build.
+	 *
+	 * @param componentClassName
+	 * @param fingerprint The fingerprint of the Component or null if its files
+	 *            can not be reused
+	 * @param dependencies
+	 */
+	public void finishComponent(String componentClassName, String fingerprint, Set<String> dependencies) {
+		if (fingerprint != null) {
+			currentFingerprints.put(componentClassName, fingerprint);
+			currentDependencies.put(componentClassName, dependencies);
+		}
+	}
+
+	/**
+	 * Removes the files of Components which were not part of this build and
+	 * writes the state file.
+	 *
+	 * @throws IOException
+	 */
+	public void write() throws IOException {
+		File[] outputsDirectories = new File(stateDirectory, OUTPUTS_DIRECTORY_NAME).listFiles();
+
+		if (outputsDirectories != null) {
+			for (File curOutputsDirectory : outputsDirectories) {
+				if (!currentFingerprints.containsKey(curOutputsDirectory.getName())) {
+					FileUtils.deleteQuietly(curOutputsDirectory);
+				}
+			}
+		}
+
+		stateDirectory.mkdirs();
+
+		OutputStream stateOutputStream = new FileOutputStream(new File(stateDirectory, STATE_FILE_NAME));
+		try {
+			Writer writer = new OutputStreamWriter(stateOutputStream, "ISO-8859-1");
+
+			writer.write("#Generated by the cq-component-maven-plugin\n");
+			writer.write(CONFIGURATION_KEY + "=" + configurationFingerprint + "\n");
+
+			for (Map.Entry<String, String> curEntry : currentFingerprints.entrySet()) {
+				writer.write(COMPONENT_KEY_PREFIX + curEntry.getKey() + "=" + curEntry.getValue() + "\n");
+
+				Set<String> dependencies = currentDependencies.get(curEntry.getKey());
+				if (dependencies != null && !dependencies.isEmpty()) {
+					writer.write(DEPENDENCIES_KEY_PREFIX + curEntry.getKey() + "="
+						+ StringUtils.join(dependencies.iterator(), DEPENDENCY_SEPARATOR) + "\n");
+				}
+			}
+
+			writer.flush();
+		} finally {
+			IOUtils.closeQuietly(stateOutputStream);
+		}
+	}
+
+	private File getOutputsDirectory(String componentClassName) {
+		return new File(new File(stateDirectory, OUTPUTS_DIRECTORY_NAME), componentClassName);
+	}
+
+}
@@ -0,0 +1,142 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javassist.CtClass;
+import javassist.NotFoundException;
+
+/**
+ * Records the classes, other than its own class and supertypes, which the
+ * files generated for a Component were derived from. These are the types
+ * expanded into the fields of a Dialog Field Set along with their supertypes,
+ * the classes whose Dialog Field annotations were resolved, and the Enums
+ * whose constants became selection options.
+ * <p>
+ * Dependencies are recorded against the Component set by
+ * {@link #startComponent(CtClass)} and kept until {@link #clear()} is called
+ * at the end of a build. Classes of the JDK are not recorded.
+ * <p>
+ * Each thread records into its own state, so builds of different modules
+ * running in parallel neither see nor clear each other's dependencies.
+ */
+public class ComponentDependencyTracker {
+
+	private static final String JDK_PACKAGE_PREFIX = "java.";
+
+	private static final ThreadLocal<ComponentDependencyTracker> TRACKERS =
+		new ThreadLocal<ComponentDependencyTracker>() {
+			@Override
+			protected ComponentDependencyTracker initialValue() {
+				return new ComponentDependencyTracker();
+			}
+		};
+
+	private final Map<String, Set<String>> dependencies = new HashMap<String, Set<String>>();
+
+	private String currentComponentClassName;
+
+	private ComponentDependencyTracker() {
+	}
+
+	/**
+	 * Records all following dependencies against the provided Component until
+	 * {@link #endComponent()} is called.
+	 *
+	 * @param componentClass
+	 */
+	public static void startComponent(CtClass componentClass) {
+		TRACKERS.get().currentComponentClassName = componentClass.getName();
+	}
+
+	public static void endComponent() {
+		TRACKERS.get().currentComponentClassName = null;
+	}
+
+	/**
+	 * Records a dependency of the current Component. Nothing is recorded when
+	 * no Component is current.
+	 *
+	 * @param className
+	 */
+	public static void recordDependency(String className) {
+		ComponentDependencyTracker tracker = TRACKERS.get();
+
+		if (tracker.currentComponentClassName == null || className.startsWith(JDK_PACKAGE_PREFIX)
+			|| className.equals(tracker.currentComponentClassName)) {
+			return;
+		}
+
+		Set<String> componentDependencies = tracker.dependencies.get(tracker.currentComponentClassName);
+
+		if (componentDependencies == null) {
+			componentDependencies = new TreeSet<String>();
+			tracker.dependencies.put(tracker.currentComponentClassName, componentDependencies);
+		}
+
+		componentDependencies.add(className);
+	}
+
+	/**
+	 * Records a class along with its superclasses and interfaces as
+	 * dependencies of the current Component.
+	 *
+	 * @param clazz
+	 * @throws NotFoundException
+	 */
+	public static void recordHierarchy(CtClass clazz) throws NotFoundException {
+		if (clazz == null || clazz.getName().startsWith(JDK_PACKAGE_PREFIX)) {
+			return;
+		}
+
+		recordDependency(clazz.getName());
+
+		recordHierarchy(clazz.getSuperclass());
+
+		for (CtClass curInterface : clazz.getInterfaces()) {
+			recordHierarchy(curInterface);
+		}
+	}
+
+	/**
+	 *
+	 * @param componentClassName
+	 * @return The names of the classes recorded as dependencies of the
+	 *         Component
+	 */
+	public static Set<String> getDependencies(String componentClassName) {
+		Set<String> componentDependencies = TRACKERS.get().dependencies.get(componentClassName);
+
+		if (componentDependencies == null) {
+			return Collections.emptySet();
+		}
+
+		return new TreeSet<String>(componentDependencies);
+	}
+
+	/**
+	 * Discards all dependencies recorded by the current thread.
+	 */
+	public static void clear() {
+		TRACKERS.remove();
+	}
+
+}
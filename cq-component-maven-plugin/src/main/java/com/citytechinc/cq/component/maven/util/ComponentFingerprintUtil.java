@@ -0,0 +1,273 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javassist.CtClass;
+import javassist.NotFoundException;
+
+import org.apache.commons.io.IOUtils;
+
+import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
+import com.citytechinc.cq.component.dialog.widget.WidgetRegistry;
+import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry;
+import com.citytechinc.cq.component.htl.util.HtlUtil;
+import com.citytechinc.cq.component.model.ComponentModel;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.TouchUIWidgetRegistry;
+import com.citytechinc.cq.component.util.InPlaceEditorConfigHolder;
+import com.citytechinc.cq.component.util.TouchUIWidgetConfigHolder;
+import com.citytechinc.cq.component.util.WidgetConfigHolder;
+
+/**
+ * Computes the fingerprints recorded in a {@link ComponentBuildState}.
+ * <p>
+ * The configuration fingerprint covers everything which may affect the files
+ * generated for any Component: the plugin's own code, the contents of the
+ * widget and in place editor registries along with the bytes of the
+ * registered classes, the HTL templates and the parameters of the build. The
+ * fingerprint of a Component covers the bytes of its class, of each of its
+ * superclasses and interfaces, and of each class it was found to depend on.
+ */
+public class ComponentFingerprintUtil {
+
+	private static final String JDK_PACKAGE_PREFIX = "java.";
+
+	private static final Class<?>[] PLUGIN_CLASSES = { ComponentMojoUtil.class, ComponentModel.class };
+
+	private ComponentFingerprintUtil() {
+	}
+
+	/**
+	 *
+	 * @param widgetRegistry
+	 * @param touchUIWidgetRegistry
+	 * @param inPlaceEditorRegistry
+	 * @param classLoader
+	 * @param buildDirectory
+	 * @param componentPathBase
+	 * @param defaultComponentPathSuffix
+	 * @param defaultComponentGroup
+	 * @param transformer
+	 * @param generateTouchUiDialogs
+	 * @param generateClassicUiDialogs
+	 * @return The configuration fingerprint
+	 * @throws IOException
+	 */
+	public static String getConfigurationFingerprint(WidgetRegistry widgetRegistry,
+		TouchUIWidgetRegistry touchUIWidgetRegistry, InPlaceEditorRegistry inPlaceEditorRegistry,
+		ClassLoader classLoader, File buildDirectory, String componentPathBase, String defaultComponentPathSuffix,
+		String defaultComponentGroup, ComponentNameTransformer transformer, boolean generateTouchUiDialogs,
+		boolean generateClassicUiDialogs) throws IOException {
+		MessageDigest messageDigest = ChecksumUtil.getMessageDigest();
+
+		for (Class<?> curPluginClass : PLUGIN_CLASSES) {
+			updateString(messageDigest, getCodeSourceChecksum(curPluginClass));
+		}
+
+		updateString(messageDigest, componentPathBase);
+		updateString(messageDigest, defaultComponentPathSuffix);
+		updateString(messageDigest, defaultComponentGroup);
+		updateString(messageDigest, String.valueOf(generateTouchUiDialogs));
+		updateString(messageDigest, String.valueOf(generateClassicUiDialogs));
+
+		updateClass(messageDigest, transformer.getClass(), classLoader);
+
+		for (Class<?> curAnnotation : sortByName(widgetRegistry.getRegisteredAnnotations())) {
+			WidgetConfigHolder widgetConfig = widgetRegistry.getWidgetForAnnotation(curAnnotation);
+			updateClass(messageDigest, curAnnotation, classLoader);
+			updateClass(messageDigest, widgetConfig.getWidgetClass(), classLoader);
+			updateClass(messageDigest, widgetConfig.getMakerClass(), classLoader);
+			updateString(messageDigest, widgetConfig.getXtype());
+			updateString(messageDigest, String.valueOf(widgetConfig.getRanking()));
+			updateString(messageDigest, widgetConfig.getFeatureFlag());
+		}
+
+		for (Class<?> curAnnotation : sortByName(touchUIWidgetRegistry.getRegisteredAnnotations())) {
+			TouchUIWidgetConfigHolder widgetConfig = touchUIWidgetRegistry.getWidgetForAnnotation(curAnnotation);
+			updateClass(messageDigest, curAnnotation, classLoader);
+			updateClass(messageDigest, widgetConfig.getWidgetClass(), classLoader);
+			updateClass(messageDigest, widgetConfig.getMakerClass(), classLoader);
+			updateString(messageDigest, widgetConfig.getResourceType());
+			updateString(messageDigest, String.valueOf(widgetConfig.getRanking()));
+			updateString(messageDigest, widgetConfig.getFeatureFlag());
+		}
+
+		for (Class<?> curAnnotation : sortByName(inPlaceEditorRegistry.getRegisteredAnnotations())) {
+			InPlaceEditorConfigHolder editorConfig = inPlaceEditorRegistry.getInPlaceEditorForAnnotation(curAnnotation);
+			updateClass(messageDigest, curAnnotation, classLoader);
+			updateClass(messageDigest, editorConfig.getInPlaceEditorClass(), classLoader);
+			updateClass(messageDigest, editorConfig.getMakerClass(), classLoader);
+			updateString(messageDigest, editorConfig.getEditorType());
+		}
+
+		File[] templates = HtlUtil.getTemplateDirectory(buildDirectory).listFiles();
+		if (templates != null) {
+			Arrays.sort(templates);
+			for (File curTemplate : templates) {
+				if (curTemplate.isFile()) {
+					updateString(messageDigest, curTemplate.getName());
+					updateString(messageDigest, ChecksumUtil.getChecksum(curTemplate));
+				}
+			}
+		}
+
+		return ChecksumUtil.toHex(messageDigest.digest());
+	}
+
+	/**
+	 *
+	 * @param componentClass
+	 * @param dependencies The names of the classes the Component depends on
+	 * @param classLoader
+	 * @return The fingerprint of the Component or null if the bytes of the
+	 *         Component class, one of its supertypes or one of its
+	 *         dependencies can not be read, in which case the Component can
+	 *         not be considered up to date
+	 * @throws IOException
+	 */
+	public static String getComponentFingerprint(CtClass componentClass, Set<String> dependencies,
+		ClassLoader classLoader) throws IOException {
+		Set<String> classNames = new LinkedHashSet<String>();
+
+		try {
+			collectHierarchy(componentClass, classNames);
+		} catch (NotFoundException e) {
+			ComponentMojoUtil.getLog().debug("Unable to resolve the hierarchy of " + componentClass.getName());
+			return null;
+		}
+
+		classNames.addAll(new TreeSet<String>(dependencies));
+
+		MessageDigest messageDigest = ChecksumUtil.getMessageDigest();
+
+		for (String curClassName : classNames) {
+			if (!updateClass(messageDigest, curClassName, classLoader)) {
+				ComponentMojoUtil.getLog().debug("Unable to read the class file of " + curClassName);
+				return null;
+			}
+		}
+
+		return ChecksumUtil.toHex(messageDigest.digest());
+	}
+
+	private static void collectHierarchy(CtClass clazz, Set<String> classNames) throws NotFoundException {
+		if (clazz == null || clazz.getName().startsWith(JDK_PACKAGE_PREFIX) || !classNames.add(clazz.getName())) {
+			return;
+		}
+
+		collectHierarchy(clazz.getSuperclass(), classNames);
+
+		for (CtClass curInterface : clazz.getInterfaces()) {
+			collectHierarchy(curInterface, classNames);
+		}
+	}
+
+	private static void updateClass(MessageDigest messageDigest, Class<?> clazz, ClassLoader classLoader)
+		throws IOException {
+		if (clazz == null) {
+			updateString(messageDigest, null);
+		} else {
+			updateClass(messageDigest, clazz.getName(), classLoader);
+		}
+	}
+
+	/**
+	 * Adds the name and the class file of a class to the digest.
+	 *
+	 * @return true if the class file was found, false otherwise
+	 */
+	private static boolean updateClass(MessageDigest messageDigest, String className, ClassLoader classLoader)
+		throws IOException {
+		updateString(messageDigest, className);
+
+		InputStream classInputStream = classLoader.getResourceAsStream(className.replace('.', '/') + ".class");
+
+		if (classInputStream == null) {
+			return false;
+		}
+
+		try {
+			messageDigest.update(IOUtils.toByteArray(classInputStream));
+		} finally {
+			IOUtils.closeQuietly(classInputStream);
+		}
+
+		return true;
+	}
+
+	private static void updateString(MessageDigest messageDigest, String value) throws IOException {
+		messageDigest.update(String.valueOf(value).getBytes("UTF-8"));
+		messageDigest.update((byte) 0);
+	}
+
+	/**
+	 * Determines the checksum of the archive a plugin class was loaded from,
+	 * so that a different version of the plugin invalidates all Components.
+	 */
+	private static String getCodeSourceChecksum(Class<?> pluginClass) throws IOException {
+		CodeSource codeSource = pluginClass.getProtectionDomain().getCodeSource();
+
+		if (codeSource == null || codeSource.getLocation() == null) {
+			return pluginClass.getName();
+		}
+
+		URL location = codeSource.getLocation();
+
+		File locationFile;
+		try {
+			locationFile = new File(location.toURI());
+		} catch (URISyntaxException e) {
+			locationFile = new File(location.getPath());
+		}
+
+		if (locationFile.isFile()) {
+			return ChecksumUtil.getChecksum(locationFile);
+		}
+
+		return location.toExternalForm();
+	}
+
+	private static List<Class<?>> sortByName(Set<Class<?>> classes) {
+		List<Class<?>> sortedClasses = new ArrayList<Class<?>>(classes);
+
+		Collections.sort(sortedClasses, new Comparator<Class<?>>() {
+
+			@Override
+			public int compare(Class<?> first, Class<?> second) {
+				return first.getName().compareTo(second.getName());
+			}
+
+		});
+
+		return sortedClasses;
+	}
+
+}
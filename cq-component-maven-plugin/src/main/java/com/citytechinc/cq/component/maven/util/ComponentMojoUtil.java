@@ -16,9 +16,8 @@
 package com.citytechinc.cq.component.maven.util;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
@@ -26,33 +25,35 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
 
 import javassist.CannotCompileException;
 import javassist.ClassPool;
+import javassist.CtBehavior;
 import javassist.CtClass;
 import javassist.CtField;
+import javassist.CtMember;
 import javassist.CtMethod;
 import javassist.NotFoundException;
+import javassist.bytecode.AnnotationsAttribute;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 
+import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
-import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.StringUtils;
-import org.reflections.Reflections;
-import org.reflections.scanners.TypeAnnotationsScanner;
-import org.reflections.util.ClasspathHelper;
-import org.reflections.util.ConfigurationBuilder;
 
 import com.citytechinc.cq.classpool.ClassLoaderClassPool;
 import com.citytechinc.cq.component.annotations.Component;
@@ -67,6 +68,7 @@ import com.citytechinc.cq.component.dialog.exception.InvalidComponentClassExcept
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentFieldException;
 import com.citytechinc.cq.component.dialog.exception.OutputFailureException;
 import com.citytechinc.cq.component.dialog.maker.WidgetMaker;
+import com.citytechinc.cq.component.dialog.util.DialogFieldHierarchyResolver;
 import com.citytechinc.cq.component.dialog.util.DialogUtil;
 import com.citytechinc.cq.component.dialog.widget.WidgetRegistry;
 import com.citytechinc.cq.component.editconfig.InPlaceEditorElement;
@@ -74,6 +76,8 @@ import com.citytechinc.cq.component.editconfig.maker.InPlaceEditorMaker;
 import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry;
 import com.citytechinc.cq.component.editconfig.util.EditConfigUtil;
 import com.citytechinc.cq.component.htl.util.HtlUtil;
+import com.citytechinc.cq.component.model.ComponentModel;
+import com.citytechinc.cq.component.model.factory.ComponentModelFactory;
 import com.citytechinc.cq.component.touchuidialog.TouchUIDialogElement;
 import com.citytechinc.cq.component.touchuidialog.exceptions.TouchUIDialogGenerationException;
 import com.citytechinc.cq.component.touchuidialog.exceptions.TouchUIDialogWriteException;
@@ -166,6 +170,8 @@ public class ComponentMojoUtil {
 	 * Add files to the already constructed Archive file by creating a new
 	 * Archive file, appending the contents of the existing Archive file to it,
 	 * and then adding additional entries for the newly constructed artifacts.
+	 * The new Archive file replaces the output Archive file, which is the
+	 * existing Archive file itself when it is updated in place.
 	 * 
 	 * @param classList
 	 * @param classLoader
@@ -176,6 +182,19 @@ public class ComponentMojoUtil {
 	 * @param defaultComponentGroup
 	 * @param existingArchiveFile
 	 * @param tempArchiveFile
+	 * @param outputArchiveFile
+	 * @param transformer
+	 * @param generateTouchUiDialogs
+	 * @param generateClassicUiDialogs
+	 * @param writeExplodedComponentFiles Whether the generated files are
+	 *            additionally written to the component output directories
+	 *            outside of the archive
+	 * @param parallelCompression Whether the generated entries are compressed
+	 *            by a pool of threads rather than by the archive stream
+	 * @param compression How the copied and the generated entries are
+	 *            compressed
+	 * @return The files written to or removed from the component output
+	 *         directories outside of the archive
 	 * @throws OutputFailureException
 	 * @throws IOException
 	 * @throws InvalidComponentClassException
@@ -193,11 +212,13 @@ public class ComponentMojoUtil {
 	 * @throws NoSuchMethodException
 	 * @throws InstantiationException
 	 */
-	public static void buildArchiveFileForProjectAndClassList(List<CtClass> classList, WidgetRegistry widgetRegistry,
-		TouchUIWidgetRegistry touchUIWidgetRegistry, InPlaceEditorRegistry inPlaceEditorRegistry,
-		ClassLoader classLoader, ClassPool classPool, File buildDirectory, String componentPathBase,
-		String defaultComponentPathSuffix, String defaultComponentGroup, File existingArchiveFile,
-		File tempArchiveFile, ComponentNameTransformer transformer, boolean generateTouchUiDialogs, boolean generateClassicUiDialogs)
+	public static List<File> buildArchiveFileForProjectAndClassList(List<CtClass> classList,
+		WidgetRegistry widgetRegistry, TouchUIWidgetRegistry touchUIWidgetRegistry,
+		InPlaceEditorRegistry inPlaceEditorRegistry, ClassLoader classLoader, ClassPool classPool,
+		File buildDirectory, String componentPathBase, String defaultComponentPathSuffix,
+		String defaultComponentGroup, File existingArchiveFile, File tempArchiveFile, File outputArchiveFile,
+		ComponentNameTransformer transformer, boolean generateTouchUiDialogs, boolean generateClassicUiDialogs,
+		boolean writeExplodedComponentFiles, boolean parallelCompression, ArchiveCompression compression)
 		throws OutputFailureException, IOException, InvalidComponentClassException, InvalidComponentFieldException,
 		ParserConfigurationException, TransformerException, ClassNotFoundException, CannotCompileException,
 		NotFoundException, SecurityException, NoSuchFieldException, IllegalArgumentException, IllegalAccessException,
@@ -215,76 +236,368 @@ public class ComponentMojoUtil {
 
 		tempArchiveFile.createNewFile();
 
-		deleteTemporaryComponentOutputDirectory(buildDirectory);
+		File manifestFile = new File(buildDirectory, ComponentOutputManifest.MANIFEST_FILE_NAME);
 
-		/*
-		 * Create archive input stream
-		 */
-		ZipArchiveInputStream existingInputStream = new ZipArchiveInputStream(new FileInputStream(existingArchiveFile));
+		ComponentOutputManifest previousManifest = readComponentOutputManifest(manifestFile);
+
+		if (previousManifest == null) {
+			getLog().debug("No component output manifest found, deleting " + OUTPUT_PATH);
+			deleteTemporaryComponentOutputDirectory(buildDirectory);
+		}
+
+		ComponentBuildState buildState =
+			readComponentBuildState(widgetRegistry, touchUIWidgetRegistry, inPlaceEditorRegistry, classLoader,
+				buildDirectory, componentPathBase, defaultComponentPathSuffix, defaultComponentGroup, transformer,
+				generateTouchUiDialogs, generateClassicUiDialogs);
 
 		/*
 		 * Create a zip archive output stream for the temp file
 		 */
 		ZipArchiveOutputStream tempOutputStream = new ZipArchiveOutputStream(tempArchiveFile);
+		tempOutputStream.setMethod(compression.getMethod());
+		tempOutputStream.setLevel(compression.getLevel());
+
+		ExecutorService compressionExecutor = null;
+		boolean archiveWritten = false;
+		List<File> changedFiles = new ArrayList<File>();
+
+		try {
+			/*
+			 * Copy all existing entries to the new archive
+			 */
+			Set<String> existingArchiveEntryNames =
+				copyArchiveEntries(existingArchiveFile, tempOutputStream, compression);
+
+			/*
+			 * Generated files are written straight into the temp archive,
+			 * keeping an exploded copy within the build directory only when
+			 * asked to
+			 */
+			File temporaryOutputDirectory = getTemporaryOutputDirectory(buildDirectory);
+
+			DirectoryComponentOutputSink explodedSink = null;
+			if (writeExplodedComponentFiles) {
+				explodedSink =
+					new DirectoryComponentOutputSink(transformer, temporaryOutputDirectory, componentPathBase,
+						defaultComponentPathSuffix);
+			}
 
-		/*
-		 * Iterate through all existing entries adding them to the new archive
-		 */
-		ZipArchiveEntry curArchiveEntry;
+			if (parallelCompression && compression.getMethod() == ZipEntry.DEFLATED) {
+				compressionExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+			}
 
-		Set<String> existingArchiveEntryNames = new HashSet<String>();
+			ArchiveComponentOutputSink outputSink =
+				new ArchiveComponentOutputSink(transformer, tempOutputStream, existingArchiveEntryNames,
+					componentPathBase, defaultComponentPathSuffix, explodedSink, compressionExecutor,
+					compression.getLevel());
 
-		while ((curArchiveEntry = existingInputStream.getNextZipEntry()) != null) {
-			existingArchiveEntryNames.add(curArchiveEntry.getName().toLowerCase());
-			getLog().debug("Current File Name: " + curArchiveEntry.getName());
-			tempOutputStream.putArchiveEntry(curArchiveEntry);
-			IOUtils.copy(existingInputStream, tempOutputStream);
-			tempOutputStream.closeArchiveEntry();
-		}
+			if (previousManifest == null) {
+				changedFiles.add(temporaryOutputDirectory);
+			}
 
-		/*
-		 * Create content.xml within temp archive
-		 */
-		ContentUtil.buildContentFromClassList(classList, tempOutputStream, existingArchiveEntryNames, buildDirectory,
-			componentPathBase, defaultComponentPathSuffix, defaultComponentGroup, transformer);
+			buildComponentFilesForClassList(classList, widgetRegistry, touchUIWidgetRegistry, inPlaceEditorRegistry,
+				classLoader, classPool, buildDirectory, defaultComponentGroup, generateTouchUiDialogs,
+				generateClassicUiDialogs, outputSink, buildState);
 
-		/*
-		 * Create html file within temp archive
-		 */
-		HtlUtil.buildHtlFromClassList(classList, tempOutputStream, existingArchiveEntryNames, buildDirectory,
-			componentPathBase, defaultComponentPathSuffix, defaultComponentGroup, transformer);
+			/*
+			 * Append the entries still being compressed
+			 */
+			outputSink.finish();
 
-		/*
-		 * Create Dialogs within temp archive
-		 */
-		if (generateClassicUiDialogs) {
-			DialogUtil.buildDialogsFromClassList(transformer, classList, tempOutputStream, existingArchiveEntryNames,
-				widgetRegistry, classLoader, classPool, buildDirectory, componentPathBase, defaultComponentPathSuffix);
-		}
+			tempOutputStream.finish();
+			tempOutputStream.close();
+			archiveWritten = true;
 
-		if (generateTouchUiDialogs) {
-			TouchUIDialogUtil.buildDialogsFromClassList(classList, classLoader, classPool, touchUIWidgetRegistry,
-				transformer, buildDirectory, componentPathBase, defaultComponentPathSuffix, tempOutputStream,
-				existingArchiveEntryNames);
-		}
+			ComponentOutputManifest currentManifest = new ComponentOutputManifest();
+			if (explodedSink != null) {
+				explodedSink.logSummary();
+				currentManifest = explodedSink.getManifest();
+				changedFiles.addAll(explodedSink.getWrittenFiles());
+			}
 
-		/*
-		 * Create edit config within temp archive
-		 */
-		EditConfigUtil.buildEditConfigFromClassList(classList, tempOutputStream, existingArchiveEntryNames,
-			inPlaceEditorRegistry, classLoader, classPool, buildDirectory, componentPathBase,
-			defaultComponentPathSuffix, transformer);
+			changedFiles.addAll(updateComponentOutputs(manifestFile, temporaryOutputDirectory, previousManifest,
+				currentManifest));
+
+			buildState.write();
+		} finally {
+			if (compressionExecutor != null) {
+				compressionExecutor.shutdownNow();
+			}
+
+			/*
+			 * A failed build leaves neither an open stream nor a partial temp
+			 * archive behind
+			 */
+			if (!archiveWritten) {
+				IOUtils.closeQuietly(tempOutputStream);
+				tempArchiveFile.delete();
+			}
+		}
 
 		/*
 		 * Copy temp archive to the original archive position
 		 */
-		tempOutputStream.finish();
-		existingInputStream.close();
-		tempOutputStream.close();
+		outputArchiveFile.delete();
+		tempArchiveFile.renameTo(outputArchiveFile);
 
-		existingArchiveFile.delete();
-		tempArchiveFile.renameTo(existingArchiveFile);
+		return changedFiles;
+	}
 
+	/**
+	 * Writes the files generated for the provided Component classes into the
+	 * content tree, without reading or writing the package archive. Each file
+	 * is written to the directory determined by
+	 * {@link #getOutputDirectoryForComponentClass} within the content tree,
+	 * replacing the file written by a previous build, and the files of
+	 * Components which are no longer generated are removed.
+	 * 
+	 * @param classList
+	 * @param widgetRegistry
+	 * @param touchUIWidgetRegistry
+	 * @param inPlaceEditorRegistry
+	 * @param classLoader
+	 * @param classPool
+	 * @param buildDirectory
+	 * @param contentDirectory The root of the content tree
+	 * @param componentPathBase
+	 * @param defaultComponentPathSuffix
+	 * @param defaultComponentGroup
+	 * @param transformer
+	 * @param generateTouchUiDialogs
+	 * @param generateClassicUiDialogs
+	 * @return The files written to or removed from the content tree
+	 * @throws OutputFailureException
+	 * @throws IOException
+	 * @throws InvalidComponentClassException
+	 * @throws InvalidComponentFieldException
+	 * @throws ClassNotFoundException
+	 * @throws CannotCompileException
+	 * @throws NotFoundException
+	 * @throws SecurityException
+	 * @throws NoSuchFieldException
+	 * @throws IllegalArgumentException
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 * @throws InstantiationException
+	 * @throws TouchUIDialogWriteException
+	 * @throws TouchUIDialogGenerationException
+	 */
+	public static List<File> buildContentTreeForProjectAndClassList(List<CtClass> classList,
+		WidgetRegistry widgetRegistry, TouchUIWidgetRegistry touchUIWidgetRegistry,
+		InPlaceEditorRegistry inPlaceEditorRegistry, ClassLoader classLoader, ClassPool classPool,
+		File buildDirectory, File contentDirectory, String componentPathBase, String defaultComponentPathSuffix,
+		String defaultComponentGroup, ComponentNameTransformer transformer, boolean generateTouchUiDialogs,
+		boolean generateClassicUiDialogs) throws OutputFailureException, IOException, InvalidComponentClassException,
+		InvalidComponentFieldException, ClassNotFoundException, CannotCompileException, NotFoundException,
+		SecurityException, NoSuchFieldException, IllegalArgumentException, IllegalAccessException,
+		InvocationTargetException, NoSuchMethodException, InstantiationException, TouchUIDialogWriteException,
+		TouchUIDialogGenerationException {
+
+		File manifestFile = new File(buildDirectory, ComponentOutputManifest.CONTENT_MANIFEST_FILE_NAME);
+
+		ComponentOutputManifest previousManifest = readComponentOutputManifest(manifestFile);
+
+		ComponentBuildState buildState =
+			readComponentBuildState(widgetRegistry, touchUIWidgetRegistry, inPlaceEditorRegistry, classLoader,
+				buildDirectory, componentPathBase, defaultComponentPathSuffix, defaultComponentGroup, transformer,
+				generateTouchUiDialogs, generateClassicUiDialogs);
+
+		DirectoryComponentOutputSink outputSink =
+			new DirectoryComponentOutputSink(transformer, contentDirectory, componentPathBase,
+				defaultComponentPathSuffix);
+
+		buildComponentFilesForClassList(classList, widgetRegistry, touchUIWidgetRegistry, inPlaceEditorRegistry,
+			classLoader, classPool, buildDirectory, defaultComponentGroup, generateTouchUiDialogs,
+			generateClassicUiDialogs, outputSink, buildState);
+
+		outputSink.logSummary();
+
+		List<File> changedFiles = new ArrayList<File>();
+		changedFiles.addAll(outputSink.getWrittenFiles());
+		changedFiles.addAll(updateComponentOutputs(manifestFile, contentDirectory, previousManifest,
+			outputSink.getManifest()));
+
+		buildState.write();
+
+		return changedFiles;
+	}
+
+	/**
+	 * Reads the build state of the previous build, which is discarded if any
+	 * of the provided registries or parameters changed since.
+	 */
+	private static ComponentBuildState readComponentBuildState(WidgetRegistry widgetRegistry,
+		TouchUIWidgetRegistry touchUIWidgetRegistry, InPlaceEditorRegistry inPlaceEditorRegistry,
+		ClassLoader classLoader, File buildDirectory, String componentPathBase, String defaultComponentPathSuffix,
+		String defaultComponentGroup, ComponentNameTransformer transformer, boolean generateTouchUiDialogs,
+		boolean generateClassicUiDialogs) throws IOException {
+		String configurationFingerprint =
+			ComponentFingerprintUtil.getConfigurationFingerprint(widgetRegistry, touchUIWidgetRegistry,
+				inPlaceEditorRegistry, classLoader, buildDirectory, componentPathBase, defaultComponentPathSuffix,
+				defaultComponentGroup, transformer, generateTouchUiDialogs, generateClassicUiDialogs);
+
+		return ComponentBuildState.read(new File(buildDirectory, ComponentBuildState.STATE_DIRECTORY_NAME),
+			configurationFingerprint);
+	}
+
+	/**
+	 * Generates the content.xml, HTL script, dialogs and edit config of each
+	 * of the provided Component classes and writes them to the provided
+	 * output sink. Components whose fingerprint matches the one recorded in
+	 * the build state are not generated again, the files kept from the
+	 * previous build being written instead.
+	 */
+	private static void buildComponentFilesForClassList(List<CtClass> classList, WidgetRegistry widgetRegistry,
+		TouchUIWidgetRegistry touchUIWidgetRegistry, InPlaceEditorRegistry inPlaceEditorRegistry,
+		ClassLoader classLoader, ClassPool classPool, File buildDirectory, String defaultComponentGroup,
+		boolean generateTouchUiDialogs, boolean generateClassicUiDialogs, ComponentOutputSink outputSink,
+		ComponentBuildState buildState) throws OutputFailureException, IOException, InvalidComponentClassException,
+		InvalidComponentFieldException, ClassNotFoundException, CannotCompileException, NotFoundException,
+		SecurityException, NoSuchFieldException, IllegalArgumentException, IllegalAccessException,
+		InvocationTargetException, NoSuchMethodException, InstantiationException, TouchUIDialogWriteException,
+		TouchUIDialogGenerationException {
+
+		try {
+			/*
+			 * Reuse the files of the Components whose inputs did not change
+			 */
+			List<CtClass> changedClassList = new ArrayList<CtClass>();
+
+			for (CtClass curClass : classList) {
+				String fingerprint =
+					ComponentFingerprintUtil.getComponentFingerprint(curClass,
+						buildState.getDependencies(curClass.getName()), classLoader);
+
+				if (buildState.isUpToDate(curClass.getName(), fingerprint)) {
+					getLog().debug("Reusing the generated files of " + curClass.getName());
+					buildState.reuseOutputs(curClass, fingerprint, outputSink);
+				} else {
+					buildState.startComponent(curClass.getName());
+					changedClassList.add(curClass);
+				}
+			}
+
+			getLog().info(
+				"Generating " + changedClassList.size() + " of " + classList.size() + " components, "
+					+ (classList.size() - changedClassList.size()) + " unchanged");
+
+			/*
+			 * Keep the files of the Components generated by this build for the
+			 * next one
+			 */
+			ComponentOutputSink cachingOutputSink = new CachingComponentOutputSink(outputSink, buildState);
+
+			/*
+			 * Resolve the model of each Component once for all generators
+			 */
+			List<ComponentModel> componentModels =
+				ComponentModelFactory.make(changedClassList, inPlaceEditorRegistry);
+
+			/*
+			 * Create content.xml
+			 */
+			ContentUtil.buildContentFromClassList(componentModels, cachingOutputSink, defaultComponentGroup);
+
+			/*
+			 * Create html file
+			 */
+			HtlUtil.buildHtlFromClassList(componentModels, cachingOutputSink, buildDirectory);
+
+			/*
+			 * Create Dialogs
+			 */
+			if (generateClassicUiDialogs) {
+				DialogUtil.buildDialogsFromClassList(componentModels, cachingOutputSink, widgetRegistry, classLoader,
+					classPool);
+			}
+
+			if (generateTouchUiDialogs) {
+				TouchUIDialogUtil.buildDialogsFromClassList(componentModels, classLoader, classPool,
+					touchUIWidgetRegistry, cachingOutputSink);
+			}
+
+			/*
+			 * Create edit config
+			 */
+			EditConfigUtil.buildEditConfigFromClassList(componentModels, cachingOutputSink, inPlaceEditorRegistry,
+				classLoader, classPool);
+
+			/*
+			 * Fingerprint the generated Components along with the classes they
+			 * were found to depend on
+			 */
+			for (CtClass curClass : changedClassList) {
+				Set<String> dependencies = ComponentDependencyTracker.getDependencies(curClass.getName());
+				buildState.finishComponent(curClass.getName(),
+					ComponentFingerprintUtil.getComponentFingerprint(curClass, dependencies, classLoader),
+					dependencies);
+			}
+		} finally {
+			/*
+			 * Release the class hierarchy tables built while resolving Dialog
+			 * Fields, the serialization plans of the written elements and the
+			 * recorded dependencies
+			 */
+			DialogFieldHierarchyResolver.clear();
+			XmlWriter.clearElementPlans();
+			ComponentDependencyTracker.clear();
+		}
+	}
+
+	/**
+	 * Copies every entry of an existing archive to the provided archive output
+	 * stream in the order the entries are stored. Entries are transferred in
+	 * their compressed form, without being inflated and deflated again, unless
+	 * the compression requires them to be compressed differently.
+	 * 
+	 * @param existingArchiveFile
+	 * @param archiveStream
+	 * @param compression
+	 * @return The lower cased names of the copied entries
+	 * @throws IOException
+	 */
+	private static Set<String> copyArchiveEntries(File existingArchiveFile, ZipArchiveOutputStream archiveStream,
+		ArchiveCompression compression) throws IOException {
+		Set<String> archiveEntryNames = new HashSet<String>();
+
+		ZipFile existingArchive = new ZipFile(existingArchiveFile);
+
+		try {
+			Enumeration<ZipArchiveEntry> entries = existingArchive.getEntriesInPhysicalOrder();
+
+			while (entries.hasMoreElements()) {
+				ZipArchiveEntry curArchiveEntry = entries.nextElement();
+				archiveEntryNames.add(curArchiveEntry.getName().toLowerCase());
+				getLog().debug("Current File Name: " + curArchiveEntry.getName());
+
+				if (compression.isRecompressionRequired(curArchiveEntry)) {
+					ZipArchiveEntry recompressedEntry = new ZipArchiveEntry(curArchiveEntry);
+					recompressedEntry.setMethod(compression.getMethod());
+					recompressedEntry.setCompressedSize(ArchiveEntry.SIZE_UNKNOWN);
+
+					InputStream entryInputStream = existingArchive.getInputStream(curArchiveEntry);
+					try {
+						archiveStream.putArchiveEntry(recompressedEntry);
+						IOUtils.copy(entryInputStream, archiveStream);
+						archiveStream.closeArchiveEntry();
+					} finally {
+						IOUtils.closeQuietly(entryInputStream);
+					}
+				} else {
+					InputStream rawInputStream = existingArchive.getRawInputStream(curArchiveEntry);
+					try {
+						archiveStream.addRawArchiveEntry(curArchiveEntry, rawInputStream);
+					} finally {
+						IOUtils.closeQuietly(rawInputStream);
+					}
+				}
+			}
+		} finally {
+			existingArchive.close();
+		}
+
+		return archiveEntryNames;
 	}
 
 	/**
@@ -326,6 +639,8 @@ public class ComponentMojoUtil {
 	 * based on the component class as well as POM configuration.
 	 * 
 	 * @param componentClass
+	 * @param outputDirectory The directory the files of all components are
+	 *            written under
 	 * @param componentPathBase
 	 * @return The determined output directory
 	 * @throws OutputFailureException
@@ -333,24 +648,12 @@ public class ComponentMojoUtil {
 	 * @throws IOException 
 	 */
 	public static File getOutputDirectoryForComponentClass(ComponentNameTransformer transformer,
-		CtClass componentClass, File buildDirectory, String componentPathBase, String defaultComponentPathSuffix)
+		CtClass componentClass, File outputDirectory, String componentPathBase, String defaultComponentPathSuffix)
 		throws OutputFailureException, ClassNotFoundException, IOException {
 
-
-		String outputPath = buildDirectory.getParentFile().getParentFile().getCanonicalPath() + "//ui//apps//src//main//content//"; 
-		File directory = new File(outputPath);
-		
-		if (!directory.exists()) {
-			outputPath = OUTPUT_PATH; // default
-		}
-		
-		String dialogFilePath =
-				outputPath + "/" + getComponentBasePathForComponentClass(componentClass, componentPathBase) + "/"
-					+ getComponentPathSuffixForComponentClass(componentClass, defaultComponentPathSuffix) + "/"
-					+ getComponentNameForComponentClass(transformer, componentClass);
-
-		
-		File componentOutputDirectory = new File(buildDirectory, dialogFilePath);
+		File componentOutputDirectory =
+			new File(outputDirectory, getComponentPathForComponentClass(transformer, componentClass,
+				componentPathBase, defaultComponentPathSuffix));
 
 		if (!componentOutputDirectory.exists()) {
 			if (!componentOutputDirectory.mkdirs()) {
@@ -361,6 +664,36 @@ public class ComponentMojoUtil {
 		return componentOutputDirectory;
 	}
 
+	/**
+	 * Determines the temporary directory within the build directory which the
+	 * exploded copies of the files injected into the package are written to.
+	 * 
+	 * @param buildDirectory
+	 * @return The determined directory
+	 */
+	public static File getTemporaryOutputDirectory(File buildDirectory) {
+		return new File(buildDirectory, OUTPUT_PATH);
+	}
+
+	/**
+	 * Determines the path of a component's folder relative to the root of the
+	 * package content, which is where the component's artifacts are placed.
+	 * 
+	 * @param transformer
+	 * @param componentClass
+	 * @param componentPathBase
+	 * @param defaultComponentPathSuffix
+	 * @return The determined path
+	 * @throws ClassNotFoundException
+	 */
+	public static String getComponentPathForComponentClass(ComponentNameTransformer transformer,
+		CtClass componentClass, String componentPathBase, String defaultComponentPathSuffix)
+		throws ClassNotFoundException {
+		return getComponentBasePathForComponentClass(componentClass, componentPathBase) + "/"
+			+ getComponentPathSuffixForComponentClass(componentClass, defaultComponentPathSuffix) + "/"
+			+ getComponentNameForComponentClass(transformer, componentClass);
+	}
+
 	public static String getComponentBasePathForComponentClass(CtClass componentClass, String componentPathBase)
 		throws ClassNotFoundException {
 		Component componentAnnotation = (Component) componentClass.getAnnotation(Component.class);
@@ -378,6 +711,86 @@ public class ComponentMojoUtil {
 		return toReturnBasePath;
 	}
 
+	/**
+	 * Reads the manifest of the files generated by the previous build of a
+	 * goal and removes it, so that a build which fails before writing its own
+	 * manifest is followed by a full cleanup of the temporary output
+	 * directory, which may hold files of any Component. Files written into a
+	 * content tree are never removed without a manifest listing them.
+	 *
+	 * @param manifestFile The manifest of the goal
+	 * @return The previous manifest or null if there is none
+	 * @throws IOException
+	 */
+	protected static ComponentOutputManifest readComponentOutputManifest(File manifestFile) throws IOException {
+		ComponentOutputManifest previousManifest = ComponentOutputManifest.read(manifestFile);
+
+		if (previousManifest != null) {
+			FileUtils.forceDelete(manifestFile);
+		}
+
+		return previousManifest;
+	}
+
+	/**
+	 * Removes the files of the previous build which were not generated again,
+	 * belonging to Components which were deleted, renamed or moved, and
+	 * records the manifest of the current build for the next one.
+	 *
+	 * @param manifestFile The manifest of the goal
+	 * @param outputDirectory The directory the files were written under,
+	 *            which is never removed itself
+	 * @param previousManifest The manifest of the previous build or null
+	 * @param currentManifest
+	 * @return The removed files
+	 * @throws IOException
+	 */
+	protected static List<File> updateComponentOutputs(File manifestFile, File outputDirectory,
+		ComponentOutputManifest previousManifest, ComponentOutputManifest currentManifest) throws IOException {
+		List<File> removedFiles = new ArrayList<File>();
+
+		if (previousManifest != null) {
+			File rootDirectory = outputDirectory.getAbsoluteFile();
+
+			for (String curStaleOutput : previousManifest.getStaleOutputs(currentManifest)) {
+				File staleFile = new File(curStaleOutput);
+
+				if (staleFile.isFile()) {
+					getLog().debug("Removing stale " + staleFile.getAbsolutePath());
+					FileUtils.forceDelete(staleFile);
+					deleteEmptyDirectories(staleFile.getParentFile(), rootDirectory);
+					removedFiles.add(staleFile);
+				}
+			}
+
+			if (!removedFiles.isEmpty()) {
+				getLog().info("Removed " + removedFiles.size() + " stale component files");
+			}
+		}
+
+		currentManifest.write(manifestFile);
+
+		return removedFiles;
+	}
+
+	/**
+	 * Deletes the provided directory and its parents for as long as they are
+	 * empty, stopping at the root directory.
+	 */
+	private static void deleteEmptyDirectories(File directory, File rootDirectory) {
+		File curDirectory = directory;
+
+		while (curDirectory != null && !rootDirectory.equals(curDirectory.getAbsoluteFile())) {
+			String[] children = curDirectory.list();
+
+			if (children == null || children.length > 0 || !curDirectory.delete()) {
+				return;
+			}
+
+			curDirectory = curDirectory.getParentFile();
+		}
+	}
+
 	/**
 	 * Deletes the temporary output directory which is created as part of the
 	 * build process to temporarily hold the generated files for components.
@@ -386,7 +799,7 @@ public class ComponentMojoUtil {
 	 * @throws IOException
 	 */
 	protected static void deleteTemporaryComponentOutputDirectory(File buildDirectory) throws IOException {
-		File componentOutputDirectory = new File(buildDirectory, OUTPUT_PATH);
+		File componentOutputDirectory = getTemporaryOutputDirectory(buildDirectory);
 
 		if (componentOutputDirectory.exists()) {
 			FileUtils.deleteDirectory(componentOutputDirectory);
@@ -457,18 +870,18 @@ public class ComponentMojoUtil {
 	 * 
 	 * @param classPool
 	 * @param classLoader
-	 * @param reflections
+	 * @param annotationIndex
 	 * @return The constructed widget configurations
 	 * @throws ClassNotFoundException
 	 * @throws NotFoundException
 	 * @throws MalformedURLException
 	 */
 	public static List<WidgetConfigHolder> getAllWidgetAnnotations(ClassPool classPool, ClassLoader classLoader,
-		Reflections reflections) throws ClassNotFoundException, NotFoundException, MalformedURLException {
+		AnnotationIndex annotationIndex) throws ClassNotFoundException, NotFoundException, MalformedURLException {
 		List<WidgetConfigHolder> builtInWidgets = new ArrayList<WidgetConfigHolder>();
 
-		for (Class<?> c : reflections.getTypesAnnotatedWith(Widget.class)) {
-			CtClass clazz = classPool.getCtClass(c.getName());
+		for (String className : annotationIndex.getClassNamesAnnotatedWith(Widget.class)) {
+			CtClass clazz = classPool.getCtClass(className);
 			Widget widgetAnnotation = (Widget) clazz.getAnnotation(Widget.class);
 
 			Class<? extends Annotation> annotationClass = widgetAnnotation.annotationClass();
@@ -487,11 +900,11 @@ public class ComponentMojoUtil {
 	}
 
 	public static List<TouchUIWidgetConfigHolder> getAllTouchUIWidgetAnnotations(ClassPool classPool,
-		ClassLoader classLoader, Reflections reflections) throws NotFoundException, ClassNotFoundException {
+		ClassLoader classLoader, AnnotationIndex annotationIndex) throws NotFoundException, ClassNotFoundException {
 		List<TouchUIWidgetConfigHolder> widgetConfigurations = new ArrayList<TouchUIWidgetConfigHolder>();
 
-		for (Class<?> c : reflections.getTypesAnnotatedWith(TouchUIWidget.class)) {
-			CtClass clazz = classPool.getCtClass(c.getName());
+		for (String className : annotationIndex.getClassNamesAnnotatedWith(TouchUIWidget.class)) {
+			CtClass clazz = classPool.getCtClass(className);
 			TouchUIWidget widgetAnnotation = (TouchUIWidget) clazz.getAnnotation(TouchUIWidget.class);
 			Class<? extends Annotation> annotationClass = widgetAnnotation.annotationClass();
 			Class<? extends TouchUIWidgetMaker> widgetMakerClass = widgetAnnotation.makerClass();
@@ -506,11 +919,11 @@ public class ComponentMojoUtil {
 	}
 
 	public static List<InPlaceEditorConfigHolder> getInPlaceEditorAnnotations(ClassPool classPool,
-		ClassLoader classLoader, Reflections reflections) throws NotFoundException, ClassNotFoundException {
+		ClassLoader classLoader, AnnotationIndex annotationIndex) throws NotFoundException, ClassNotFoundException {
 		List<InPlaceEditorConfigHolder> inPlaceEditorConfigurations = new ArrayList<InPlaceEditorConfigHolder>();
 
-		for (Class<?> c : reflections.getTypesAnnotatedWith(InPlaceEditor.class)) {
-			CtClass clazz = classPool.getCtClass(c.getName());
+		for (String className : annotationIndex.getClassNamesAnnotatedWith(InPlaceEditor.class)) {
+			CtClass clazz = classPool.getCtClass(className);
 			InPlaceEditor inPlaceEditorAnnotation = (InPlaceEditor) clazz.getAnnotation(InPlaceEditor.class);
 			Class<? extends Annotation> annotationClass = inPlaceEditorAnnotation.annotationClass();
 			Class<? extends InPlaceEditorMaker> makerClass = inPlaceEditorAnnotation.makerClass();
@@ -526,32 +939,33 @@ public class ComponentMojoUtil {
 
 	/**
 	 * Retrieves a List of all classes which are annotated as Components and are
-	 * within the scope of the provided Reflections purview.
+	 * contained in the provided annotation index.
 	 * 
 	 * @param classPool
-	 * @param reflections
+	 * @param annotationIndex
+	 * @param excludedClasses
 	 * @return A List of classes annotated as Components
 	 * @throws ClassNotFoundException
 	 * @throws NotFoundException
 	 * @throws MalformedURLException
 	 */
-	public static List<CtClass> getAllComponentAnnotations(ClassPool classPool, Reflections reflections,
+	public static List<CtClass> getAllComponentAnnotations(ClassPool classPool, AnnotationIndex annotationIndex,
 		Set<String> excludedClasses) throws ClassNotFoundException, NotFoundException, MalformedURLException {
 		getLog().debug("Scanning for Components");
 
 		List<CtClass> classes = new ArrayList<CtClass>();
 
-		Set<Class<?>> annotatedClasses = reflections.getTypesAnnotatedWith(Component.class);
+		Set<String> annotatedClassNames = annotationIndex.getClassNamesAnnotatedWith(Component.class);
 
 		if (excludedClasses != null && !excludedClasses.isEmpty()) {
-			for (Class<?> c : annotatedClasses) {
-				if (!excludedClasses.contains(c.getName())) {
-					classes.add(classPool.getCtClass(c.getName()));
+			for (String className : annotatedClassNames) {
+				if (!excludedClasses.contains(className)) {
+					classes.add(classPool.getCtClass(className));
 				}
 			}
 		} else {
-			for (Class<?> c : annotatedClasses) {
-				classes.add(classPool.getCtClass(c.getName()));
+			for (String className : annotatedClassNames) {
+				classes.add(classPool.getCtClass(className));
 			}
 		}
 
@@ -559,32 +973,42 @@ public class ComponentMojoUtil {
 	}
 
 	/**
-	 * Retrieves a List of all classes which are annotated as Transformers and
-	 * are within the scope of the provided Reflections purview.
+	 * Retrieves the Transformer with the provided name from the classes
+	 * annotated as Transformers in the provided annotation index. Candidates
+	 * are inspected through the ClassPool, so only the selected Transformer is
+	 * loaded and instantiated.
 	 * 
 	 * @param classPool
-	 * @param reflections
-	 * @return A Map of transformer names to transformers
+	 * @param annotationIndex
+	 * @param transformerName
+	 * @return The named Transformer or null if no such Transformer exists
 	 * @throws ClassNotFoundException
 	 * @throws NotFoundException
-	 * @throws MalformedURLException
 	 * @throws IllegalAccessException
 	 * @throws InstantiationException
 	 */
-	public static Map<String, ComponentNameTransformer>
-		getAllTransformers(ClassPool classPool, Reflections reflections) throws ClassNotFoundException,
-			NotFoundException, MalformedURLException, InstantiationException, IllegalAccessException {
-		Map<String, ComponentNameTransformer> transformers = new HashMap<String, ComponentNameTransformer>();
-
-		for (Class<?> c : reflections.getTypesAnnotatedWith(Transformer.class)) {
-			if (Arrays.asList(c.getInterfaces()).contains(ComponentNameTransformer.class)) {
-				CtClass ctclass = classPool.getCtClass(c.getName());
+	public static ComponentNameTransformer getTransformer(ClassPool classPool, AnnotationIndex annotationIndex,
+		String transformerName) throws ClassNotFoundException, NotFoundException, InstantiationException,
+		IllegalAccessException {
+		CtClass transformerInterface = classPool.getCtClass(ComponentNameTransformer.class.getName());
+
+		String transformerClassName = null;
+
+		for (String className : annotationIndex.getClassNamesAnnotatedWith(Transformer.class)) {
+			CtClass ctclass = classPool.getCtClass(className);
+			if (ctclass.subtypeOf(transformerInterface)) {
 				Transformer transformer = (Transformer) ctclass.getAnnotation(Transformer.class);
-				transformers.put(transformer.value(), (ComponentNameTransformer) c.newInstance());
+				if (transformer.value().equals(transformerName)) {
+					transformerClassName = className;
+				}
 			}
 		}
 
-		return transformers;
+		if (transformerClassName == null) {
+			return null;
+		}
+
+		return (ComponentNameTransformer) classPool.getClassLoader().loadClass(transformerClassName).newInstance();
 	}
 
 	/**
@@ -630,112 +1054,66 @@ public class ComponentMojoUtil {
 	}
 
 	/**
-	 * Constructs a Reflections object suitable for reflecting on classes
-	 * accessible via the provided ClassLoader
+	 * Reads the names of the annotations present on a field or method from
+	 * the member's class file attributes. Unlike
+	 * {@link CtMember#hasAnnotation(Class)} no annotation classes are loaded
+	 * and the attributes are parsed once regardless of how many annotations
+	 * are of interest.
 	 * 
-	 * @param classLoader The ClassLoader containing classes to be reflected
-	 *            upon
-	 * @return The constructed Reflections object
-	 */
-	public static Reflections getReflections(ClassLoader classLoader) {
-		Reflections.log = null;
-		Reflections reflections =
-			new Reflections(new ConfigurationBuilder().addClassLoader(classLoader)
-				.setUrls(ClasspathHelper.forClassLoader(new ClassLoader[] { classLoader }))
-				.setScanners(new TypeAnnotationsScanner()));
-		return reflections;
-	}
-
-	/**
-	 * Writes a provided file to a provided archive output stream at a path
-	 * determined by the class of the component.
-	 * 
-	 * @param file
-	 * @param componentClass
-	 * @param archiveStream
-	 * @param reservedNames A list of files which already exist within the Zip
-	 *            Archive. If a file already exists for a particular component,
-	 *            it is left untouched.
-	 * @param componentPathBase
-	 * @throws IOException
-	 * @throws ClassNotFoundException
+	 * @param member
+	 * @return The fully qualified names of the member's annotations
 	 */
-	public static void writeElementToArchiveFile(ComponentNameTransformer transformer, File file,
-		CtClass componentClass, ZipArchiveOutputStream archiveStream, Set<String> reservedNames,
-		String componentPathBase, String defaultComponentPathSuffix, String path) throws IOException,
-		ClassNotFoundException {
-		String editConfigFilePath =
-			ComponentMojoUtil.getComponentBasePathForComponentClass(componentClass, componentPathBase) + "/"
-				+ ComponentMojoUtil.getComponentPathSuffixForComponentClass(componentClass, defaultComponentPathSuffix)
-				+ "/" + ComponentMojoUtil.getComponentNameForComponentClass(transformer, componentClass) + path;
-
-		if (!reservedNames.contains(editConfigFilePath.toLowerCase())) {
-
-			ZipArchiveEntry entry = new ZipArchiveEntry(file, editConfigFilePath);
-
-			archiveStream.putArchiveEntry(entry);
-
-			IOUtils.copy(new FileInputStream(file), archiveStream);
+	public static List<String> getAnnotationNames(CtMember member) {
+		List<String> annotationNames = new ArrayList<String>();
+
+		if (member instanceof CtField) {
+			CtField field = (CtField) member;
+			addAnnotationNames(
+				(AnnotationsAttribute) field.getFieldInfo2().getAttribute(AnnotationsAttribute.invisibleTag),
+				annotationNames);
+			addAnnotationNames(
+				(AnnotationsAttribute) field.getFieldInfo2().getAttribute(AnnotationsAttribute.visibleTag),
+				annotationNames);
+		} else if (member instanceof CtBehavior) {
+			CtBehavior behavior = (CtBehavior) member;
+			addAnnotationNames(
+				(AnnotationsAttribute) behavior.getMethodInfo2().getAttribute(AnnotationsAttribute.invisibleTag),
+				annotationNames);
+			addAnnotationNames(
+				(AnnotationsAttribute) behavior.getMethodInfo2().getAttribute(AnnotationsAttribute.visibleTag),
+				annotationNames);
+		}
 
-			archiveStream.closeArchiveEntry();
+		return annotationNames;
+	}
 
-		} else {
-			ComponentMojoUtil.getLog().debug("Existing file found at " + editConfigFilePath);
+	private static void addAnnotationNames(AnnotationsAttribute annotationsAttribute, List<String> annotationNames) {
+		if (annotationsAttribute != null) {
+			for (javassist.bytecode.annotation.Annotation curAnnotation : annotationsAttribute.getAnnotations()) {
+				annotationNames.add(curAnnotation.getTypeName());
+			}
 		}
 	}
-	
+
 	/**
-	 * Determines the name of the edit file to be written and writes the the
-	 * file which the provided EditConfig object represents to that determined
-	 * file.
-	 * 
-	 * @param htmlContent
-	 * @param componentClass
-	 * @return The file written
-	 * @throws TransformerException
-	 * @throws ParserConfigurationException
-	 * @throws IOException
-	 * @throws OutputFailureException
-	 * @throws ClassNotFoundException
-	 * @throws NoSuchMethodException
-	 * @throws InvocationTargetException
-	 * @throws IllegalAccessException
-	 * @throws SecurityException
-	 * @throws IllegalArgumentException
+	 * Determines the location of the plugin's own classes. The built in
+	 * Widgets, In Place Editors and Transformers live here, so this location
+	 * is always scanned regardless of how the scan scope is configured.
+	 *
+	 * @return The URL of the plugin archive or class directory
 	 */
-	public static File writeElementToFile(ComponentNameTransformer transformer, File htmlContent,
-		CtClass componentClass, File buildDirectory, String componentPathBase, String defaultComponentPathSuffix,
-		String path) throws TransformerException, ParserConfigurationException, IOException, OutputFailureException,
-		ClassNotFoundException, IllegalArgumentException, SecurityException, IllegalAccessException,
-		InvocationTargetException, NoSuchMethodException {
-		
-		File componentOutputDirectory =
-			ComponentMojoUtil.getOutputDirectoryForComponentClass(transformer, componentClass, buildDirectory,
-				componentPathBase, defaultComponentPathSuffix);
-
-		File file = new File(componentOutputDirectory, path);
-
-		if (file.exists()) {
-			file.delete();
-		}
-
-		file.createNewFile();
-		
-		FileUtils.copyFile(htmlContent, file);
-
-		return file;
+	public static URL getPluginClasspathUrl() {
+		return ComponentMojoUtil.class.getProtectionDomain().getCodeSource().getLocation();
 	}
 
 	/**
-	 * Determines the name of the edit file to be written and writes the the
-	 * file which the provided EditConfig object represents to that determined
-	 * file.
+	 * Serializes the provided element once and writes it to the provided sink
+	 * as a file of the Component.
 	 * 
 	 * @param xmlElement
 	 * @param componentClass
-	 * @return The file written
-	 * @throws TransformerException
-	 * @throws ParserConfigurationException
+	 * @param fileName The name of the file relative to the Component's folder
+	 * @param outputSink
 	 * @throws IOException
 	 * @throws OutputFailureException
 	 * @throws ClassNotFoundException
@@ -745,28 +1123,11 @@ public class ComponentMojoUtil {
 	 * @throws SecurityException
 	 * @throws IllegalArgumentException
 	 */
-	public static File writeElementToFile(ComponentNameTransformer transformer, AbstractXmlElement xmlElement,
-		CtClass componentClass, File buildDirectory, String componentPathBase, String defaultComponentPathSuffix,
-		String path) throws TransformerException, ParserConfigurationException, IOException, OutputFailureException,
-		ClassNotFoundException, IllegalArgumentException, SecurityException, IllegalAccessException,
-		InvocationTargetException, NoSuchMethodException {
-		
-		File componentOutputDirectory =
-			ComponentMojoUtil.getOutputDirectoryForComponentClass(transformer, componentClass, buildDirectory,
-				componentPathBase, defaultComponentPathSuffix);
-
-		File file = new File(componentOutputDirectory, path);
-
-		if (file.exists()) {
-			ComponentMojoUtil.getLog().debug("removing old file"+file.getAbsolutePath());
-			file.delete();
-		}
-
-		file.createNewFile();
-
-		XmlWriter.writeXml(xmlElement, new FileOutputStream(file));
-
-		return file;
+	public static void writeElementToSink(AbstractXmlElement xmlElement, CtClass componentClass, String fileName,
+		ComponentOutputSink outputSink) throws IOException, OutputFailureException, ClassNotFoundException,
+		IllegalArgumentException, SecurityException, IllegalAccessException, InvocationTargetException,
+		NoSuchMethodException {
+		outputSink.write(componentClass, fileName, XmlWriter.toByteArray(xmlElement));
 	}
 
 }
@@ -0,0 +1,212 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.io.IOUtils;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Records the files generated for each Component class by a build, keyed by
+ * the Component's class name. The manifest of the previous build is compared
+ * with the manifest of the current build to find the outputs of Components
+ * which were deleted or renamed, or which moved to a different component
+ * path, so that only those outputs need to be removed.
+ * <p>
+ * Manifests are stored in the properties format, each Component class name
+ * mapping to the comma separated absolute paths of its files. Each goal keeps
+ * a manifest of its own, so that one goal never removes the files written by
+ * another.
+ */
+public class ComponentOutputManifest {
+
+	/**
+	 * The manifest of the exploded files written by the component goal
+	 */
+	public static final String MANIFEST_FILE_NAME = "cq-component-output-manifest.properties";
+
+	/**
+	 * The manifest of the files written into the content tree by the
+	 * component-content goal
+	 */
+	public static final String CONTENT_MANIFEST_FILE_NAME = "cq-component-content-manifest.properties";
+
+	private static final String OUTPUT_PATH_SEPARATOR = ",";
+
+	private final Map<String, Set<String>> outputsByComponentClass = new TreeMap<String, Set<String>>();
+
+	/**
+	 *
+	 * @param componentClassName
+	 * @param outputFile
+	 */
+	public void addOutput(String componentClassName, File outputFile) {
+		Set<String> outputs = outputsByComponentClass.get(componentClassName);
+
+		if (outputs == null) {
+			outputs = new TreeSet<String>();
+			outputsByComponentClass.put(componentClassName, outputs);
+		}
+
+		outputs.add(outputFile.getAbsolutePath());
+	}
+
+	public Set<String> getComponentClassNames() {
+		return Collections.unmodifiableSet(outputsByComponentClass.keySet());
+	}
+
+	/**
+	 *
+	 * @param componentClassName
+	 * @return The absolute paths of the files generated for the Component
+	 *         class, or an empty set if none were recorded
+	 */
+	public Set<String> getOutputs(String componentClassName) {
+		Set<String> outputs = outputsByComponentClass.get(componentClassName);
+
+		if (outputs == null) {
+			return Collections.emptySet();
+		}
+
+		return Collections.unmodifiableSet(outputs);
+	}
+
+	/**
+	 * Determines the files recorded in this manifest which are no longer
+	 * generated according to the provided manifest of a later build.
+	 *
+	 * @param currentManifest
+	 * @return The absolute paths of the stale files
+	 */
+	public Set<String> getStaleOutputs(ComponentOutputManifest currentManifest) {
+		Set<String> currentOutputs = new TreeSet<String>();
+		for (Set<String> curOutputs : currentManifest.outputsByComponentClass.values()) {
+			currentOutputs.addAll(curOutputs);
+		}
+
+		Set<String> staleOutputs = new TreeSet<String>();
+		for (Set<String> curOutputs : outputsByComponentClass.values()) {
+			for (String curOutput : curOutputs) {
+				if (!currentOutputs.contains(curOutput)) {
+					staleOutputs.add(curOutput);
+				}
+			}
+		}
+
+		return staleOutputs;
+	}
+
+	/**
+	 * Reads a manifest written by {@link #write(File)}.
+	 *
+	 * @param manifestFile
+	 * @return The manifest or null if the file does not exist
+	 * @throws IOException
+	 */
+	public static ComponentOutputManifest read(File manifestFile) throws IOException {
+		if (!manifestFile.isFile()) {
+			return null;
+		}
+
+		Properties manifestProperties = new Properties();
+
+		InputStream manifestInputStream = new FileInputStream(manifestFile);
+		try {
+			manifestProperties.load(manifestInputStream);
+		} finally {
+			IOUtils.closeQuietly(manifestInputStream);
+		}
+
+		ComponentOutputManifest manifest = new ComponentOutputManifest();
+
+		for (String curComponentClassName : manifestProperties.stringPropertyNames()) {
+			String outputs = manifestProperties.getProperty(curComponentClassName);
+
+			if (StringUtils.isNotBlank(outputs)) {
+				for (String curOutput : outputs.split(OUTPUT_PATH_SEPARATOR)) {
+					if (StringUtils.isNotBlank(curOutput)) {
+						manifest.addOutput(curComponentClassName, new File(curOutput.trim()));
+					}
+				}
+			}
+		}
+
+		return manifest;
+	}
+
+	/**
+	 * Writes the manifest, sorted by Component class name and path so that the
+	 * output is stable between builds.
+	 *
+	 * @param manifestFile
+	 * @throws IOException
+	 */
+	public void write(File manifestFile) throws IOException {
+		manifestFile.getParentFile().mkdirs();
+
+		OutputStream manifestOutputStream = new FileOutputStream(manifestFile);
+		try {
+			Writer writer = new OutputStreamWriter(manifestOutputStream, "ISO-8859-1");
+
+			writer.write("#Generated by the cq-component-maven-plugin\n");
+
+			for (Map.Entry<String, Set<String>> curEntry : outputsByComponentClass.entrySet()) {
+				writer.write(escape(curEntry.getKey()) + "="
+					+ escape(StringUtils.join(curEntry.getValue().iterator(), OUTPUT_PATH_SEPARATOR)) + "\n");
+			}
+
+			writer.flush();
+		} finally {
+			IOUtils.closeQuietly(manifestOutputStream);
+		}
+	}
+
+	/**
+	 * Escapes the characters with a special meaning in the properties format,
+	 * most notably the separators and backslashes of Windows paths.
+	 */
+	private static String escape(String value) {
+		StringBuilder escapedValue = new StringBuilder();
+
+		for (char curChar : value.toCharArray()) {
+			if (curChar == '\\' || curChar == ':' || curChar == '=' || curChar == '#' || curChar == '!'
+				|| curChar == ' ') {
+				escapedValue.append('\\').append(curChar);
+			} else if (curChar > 0x7e) {
+				escapedValue.append(String.format("\\u%04x", (int) curChar));
+			} else {
+				escapedValue.append(curChar);
+			}
+		}
+
+		return escapedValue.toString();
+	}
+
+}
@@ -0,0 +1,44 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.IOException;
+
+import javassist.CtClass;
+
+import com.citytechinc.cq.component.dialog.exception.OutputFailureException;
+
+/**
+ * A destination for the files generated for Components. Generators serialize
+ * each file once and hand the result to a sink, which decides where the file
+ * ends up, be it an entry of the package archive, a file on disk or both.
+ */
+public interface ComponentOutputSink {
+
+	/**
+	 * Writes a file generated for a Component.
+	 *
+	 * @param componentClass
+	 * @param fileName The name of the file relative to the Component's folder
+	 * @param content
+	 * @throws IOException
+	 * @throws OutputFailureException
+	 * @throws ClassNotFoundException
+	 */
+	public void write(CtClass componentClass, String fileName, byte[] content) throws IOException,
+		OutputFailureException, ClassNotFoundException;
+
+}
@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javassist.CtClass;
+
+import org.apache.commons.io.FileUtils;
+
+import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
+import com.citytechinc.cq.component.dialog.exception.OutputFailureException;
+
+/**
+ * Writes generated files to the output directory of their Component as
+ * determined by {@link ComponentMojoUtil#getOutputDirectoryForComponentClass}.
+ * <p>
+ * A file written by a previous build is only replaced when its content
+ * differs from the generated content, so that unchanged files keep their
+ * timestamps and do not trigger downstream resource processing or content
+ * package rebuilds. Every file generated, whether written or not, is
+ * recorded in the sink's {@link ComponentOutputManifest}, while only the
+ * files actually written are reported by {@link #getWrittenFiles()}.
+ */
+public class DirectoryComponentOutputSink implements ComponentOutputSink {
+
+	private final ComponentNameTransformer transformer;
+	private final File outputDirectory;
+	private final String componentPathBase;
+	private final String defaultComponentPathSuffix;
+	private final ComponentOutputManifest manifest = new ComponentOutputManifest();
+	private final List<File> writtenFiles = new ArrayList<File>();
+	private int createdFileCount;
+	private int rewrittenFileCount;
+	private int unchangedFileCount;
+
+	public DirectoryComponentOutputSink(ComponentNameTransformer transformer, File outputDirectory,
+		String componentPathBase, String defaultComponentPathSuffix) {
+		this.transformer = transformer;
+		this.outputDirectory = outputDirectory;
+		this.componentPathBase = componentPathBase;
+		this.defaultComponentPathSuffix = defaultComponentPathSuffix;
+	}
+
+	@Override
+	public void write(CtClass componentClass, String fileName, byte[] content) throws IOException,
+		OutputFailureException, ClassNotFoundException {
+		File componentOutputDirectory =
+			ComponentMojoUtil.getOutputDirectoryForComponentClass(transformer, componentClass, outputDirectory,
+				componentPathBase, defaultComponentPathSuffix);
+
+		File file = new File(componentOutputDirectory, fileName);
+
+		manifest.addOutput(componentClass.getName(), file);
+
+		if (file.isFile()) {
+			if (isContentUnchanged(file, content)) {
+				ComponentMojoUtil.getLog().debug("Skipping unchanged " + file.getAbsolutePath());
+				unchangedFileCount++;
+				return;
+			}
+			rewrittenFileCount++;
+		} else {
+			createdFileCount++;
+		}
+
+		ComponentMojoUtil.getLog().debug("Writing " + file.getAbsolutePath());
+
+		FileUtils.writeByteArrayToFile(file, content);
+		writtenFiles.add(file);
+	}
+
+	/**
+	 * Logs how many files were created, rewritten and left unchanged by this
+	 * sink.
+	 */
+	public void logSummary() {
+		ComponentMojoUtil.getLog().info(
+			"Component files created: " + createdFileCount + ", rewritten: " + rewrittenFileCount + ", unchanged: "
+				+ unchangedFileCount);
+	}
+
+	public ComponentOutputManifest getManifest() {
+		return manifest;
+	}
+
+	/**
+	 * @return The files created or rewritten by this sink
+	 */
+	public List<File> getWrittenFiles() {
+		return writtenFiles;
+	}
+
+	public int getCreatedFileCount() {
+		return createdFileCount;
+	}
+
+	public int getRewrittenFileCount() {
+		return rewrittenFileCount;
+	}
+
+	public int getUnchangedFileCount() {
+		return unchangedFileCount;
+	}
+
+	private static boolean isContentUnchanged(File file, byte[] content) throws IOException {
+		if (file.length() != content.length) {
+			return false;
+		}
+
+		return ChecksumUtil.getChecksum(file).equals(ChecksumUtil.getChecksum(content));
+	}
+
+}
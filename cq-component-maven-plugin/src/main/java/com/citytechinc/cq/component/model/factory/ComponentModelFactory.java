@@ -0,0 +1,188 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.model.factory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javassist.CtClass;
+import javassist.CtMember;
+import javassist.CtMethod;
+import javassist.NotFoundException;
+
+import org.codehaus.plexus.util.StringUtils;
+
+import com.citytechinc.cq.component.annotations.Component;
+import com.citytechinc.cq.component.annotations.DialogField;
+import com.citytechinc.cq.component.annotations.IgnoreDialogField;
+import com.citytechinc.cq.component.annotations.IgnoreInPlaceEditor;
+import com.citytechinc.cq.component.annotations.editconfig.InPlaceEditorConfig;
+import com.citytechinc.cq.component.dialog.DialogFieldConfig;
+import com.citytechinc.cq.component.dialog.exception.InvalidComponentClassException;
+import com.citytechinc.cq.component.dialog.util.DialogUtil;
+import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry;
+import com.citytechinc.cq.component.editconfig.util.EditConfigUtil;
+import com.citytechinc.cq.component.maven.util.ComponentDependencyTracker;
+import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
+import com.citytechinc.cq.component.model.ComponentModel;
+
+public class ComponentModelFactory {
+
+	private ComponentModelFactory() {
+	}
+
+	/**
+	 * Constructs a ComponentModel for each of the provided Component classes.
+	 *
+	 * @param classList
+	 * @param inPlaceEditorRegistry
+	 * @return The constructed ComponentModels in the order of the class list
+	 * @throws InvalidComponentClassException
+	 * @throws ClassNotFoundException
+	 * @throws NotFoundException
+	 */
+	public static List<ComponentModel> make(List<CtClass> classList, InPlaceEditorRegistry inPlaceEditorRegistry)
+		throws InvalidComponentClassException, ClassNotFoundException, NotFoundException {
+		List<ComponentModel> componentModels = new ArrayList<ComponentModel>();
+
+		for (CtClass curClass : classList) {
+			ComponentMojoUtil.getLog().debug("Building Component Model for " + curClass.getName());
+			ComponentDependencyTracker.startComponent(curClass);
+			try {
+				componentModels.add(make(curClass, inPlaceEditorRegistry));
+			} finally {
+				ComponentDependencyTracker.endComponent();
+			}
+		}
+
+		return componentModels;
+	}
+
+	/**
+	 * Walks the members of a Component class once, resolving the Dialog Field
+	 * configurations used by the Classic and Touch UI dialogs and the In Place
+	 * Editor configurations used by the edit config.
+	 *
+	 * @param componentClass
+	 * @param inPlaceEditorRegistry The registry of In Place Editors or null
+	 *            if the In Place Editor configurations are not needed
+	 * @return The constructed ComponentModel
+	 * @throws InvalidComponentClassException
+	 * @throws ClassNotFoundException
+	 * @throws NotFoundException
+	 */
+	public static ComponentModel make(CtClass componentClass, InPlaceEditorRegistry inPlaceEditorRegistry)
+		throws InvalidComponentClassException, ClassNotFoundException, NotFoundException {
+		Component componentAnnotation = (Component) componentClass.getAnnotation(Component.class);
+
+		if (componentAnnotation == null) {
+			throw new InvalidComponentClassException("Class provided is not property annotated");
+		}
+
+		List<CtMember> members = collectMembers(componentClass, false);
+
+		List<DialogFieldConfig> dialogFieldConfigs = getDialogFieldConfigs(members);
+
+		List<DialogFieldConfig> touchUIDialogFieldConfigs = new ArrayList<DialogFieldConfig>();
+
+		List<DialogFieldConfig> touchUICandidates = dialogFieldConfigs;
+		if (componentAnnotation.suppressFieldInheritanceForTouchUI()) {
+			touchUICandidates = getDialogFieldConfigs(collectMembers(componentClass, true));
+		}
+
+		for (DialogFieldConfig curDialogFieldConfig : touchUICandidates) {
+			if (!curDialogFieldConfig.isSuppressTouchUI()) {
+				touchUIDialogFieldConfigs.add(curDialogFieldConfig);
+			}
+		}
+
+		List<InPlaceEditorConfig> inPlaceEditorConfigs = new ArrayList<InPlaceEditorConfig>();
+
+		if (inPlaceEditorRegistry != null && componentAnnotation.editConfig()
+			&& StringUtils.isEmpty(componentAnnotation.inPlaceEditingConfigPath())
+			&& StringUtils.isEmpty(componentAnnotation.inPlaceEditingEditorType())) {
+			inPlaceEditorConfigs =
+				getInPlaceEditorConfigs(members, inPlaceEditorRegistry.getRegisteredAnnotations());
+		}
+
+		return new ComponentModel(componentClass, componentAnnotation, members, dialogFieldConfigs,
+			touchUIDialogFieldConfigs, inPlaceEditorConfigs);
+	}
+
+	private static List<CtMember> collectMembers(CtClass componentClass, boolean suppressInheritedMembers)
+		throws NotFoundException {
+		List<CtMember> fieldsAndMethods = new ArrayList<CtMember>();
+		fieldsAndMethods.addAll(ComponentMojoUtil.collectFields(componentClass, suppressInheritedMembers));
+		fieldsAndMethods.addAll(ComponentMojoUtil.collectMethods(componentClass, suppressInheritedMembers));
+		return fieldsAndMethods;
+	}
+
+	private static List<DialogFieldConfig> getDialogFieldConfigs(List<CtMember> members)
+		throws NotFoundException, ClassNotFoundException, InvalidComponentClassException {
+		List<DialogFieldConfig> dialogFieldConfigs = new ArrayList<DialogFieldConfig>();
+
+		for (CtMember member : members) {
+			if (!member.hasAnnotation(IgnoreDialogField.class)) {
+				DialogFieldConfig dialogFieldConfig = null;
+				if (member instanceof CtMethod) {
+					dialogFieldConfig = DialogUtil.getDialogFieldFromSuperClasses((CtMethod) member);
+				} else {
+					if (member.hasAnnotation(DialogField.class)) {
+						dialogFieldConfig =
+							new DialogFieldConfig((DialogField) member.getAnnotation(DialogField.class), member);
+					}
+				}
+
+				if (dialogFieldConfig != null) {
+					dialogFieldConfigs.add(dialogFieldConfig);
+				}
+			}
+		}
+
+		return dialogFieldConfigs;
+	}
+
+	private static List<InPlaceEditorConfig> getInPlaceEditorConfigs(List<CtMember> members,
+		Set<Class<?>> registeredAnnotations) throws NotFoundException, ClassNotFoundException,
+		InvalidComponentClassException {
+		List<InPlaceEditorConfig> inPlaceEditorConfigs = new ArrayList<InPlaceEditorConfig>();
+
+		for (CtMember member : members) {
+			if (!member.hasAnnotation(IgnoreInPlaceEditor.class)) {
+				InPlaceEditorConfig inPlaceEditorConfig = null;
+				if (member instanceof CtMethod) {
+					inPlaceEditorConfig =
+						EditConfigUtil.getInPlaceEditorFromSuperClasses((CtMethod) member, registeredAnnotations);
+				} else {
+					for (Class<?> annotationClass : registeredAnnotations) {
+						Object ipeAnnotation = member.getAnnotation(annotationClass);
+						if (ipeAnnotation != null) {
+							if (inPlaceEditorConfig == null) {
+								inPlaceEditorConfig = new InPlaceEditorConfig(ipeAnnotation, member, annotationClass);
+							}
+						}
+					}
+				}
+				if (inPlaceEditorConfig != null) {
+					inPlaceEditorConfigs.add(inPlaceEditorConfig);
+				}
+			}
+		}
+
+		return inPlaceEditorConfigs;
+	}
+}
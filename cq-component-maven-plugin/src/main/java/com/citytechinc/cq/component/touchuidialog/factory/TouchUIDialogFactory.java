@@ -16,6 +16,7 @@
 package com.citytechinc.cq.component.touchuidialog.factory;
 
 import com.citytechinc.cq.component.annotations.Component;
+import com.citytechinc.cq.component.model.ComponentModel;
 import com.citytechinc.cq.component.touchuidialog.TouchUIDialog;
 import com.citytechinc.cq.component.touchuidialog.TouchUIDialogParameters;
 import com.citytechinc.cq.component.touchuidialog.exceptions.TouchUIDialogGenerationException;
@@ -27,7 +28,6 @@ import com.citytechinc.cq.component.touchuidialog.layout.tabs.TabsLayoutMaker;
 import com.citytechinc.cq.component.touchuidialog.widget.registry.TouchUIWidgetRegistry;
 import com.citytechinc.cq.component.xml.XmlElement;
 import javassist.ClassPool;
-import javassist.CtClass;
 import org.codehaus.plexus.util.StringUtils;
 
 import javax.annotation.Nullable;
@@ -40,11 +40,11 @@ public class TouchUIDialogFactory {
 	}
 
 	@Nullable
-	public static TouchUIDialog make(CtClass componentClass, ClassLoader classLoader, ClassPool classPool,
+	public static TouchUIDialog make(ComponentModel componentModel, ClassLoader classLoader, ClassPool classPool,
 		TouchUIWidgetRegistry widgetRegistry) throws TouchUIDialogGenerationException {
 		try {
 
-			Component componentAnnotation = (Component) componentClass.getAnnotation(Component.class);
+			Component componentAnnotation = componentModel.getComponentAnnotation();
 
 			// If output of the Touch UI dialog is disabled, return null
 			if (componentAnnotation.suppressTouchUIDialog()) {
@@ -65,7 +65,8 @@ public class TouchUIDialogFactory {
 			// maker
 			LayoutMakerParameters layoutMakerParameters = new LayoutMakerParameters();
 
-			layoutMakerParameters.setComponentClass(componentClass);
+			layoutMakerParameters.setComponentClass(componentModel.getComponentClass());
+			layoutMakerParameters.setComponentModel(componentModel);
 			layoutMakerParameters.setClassLoader(classLoader);
 			layoutMakerParameters.setClassPool(classPool);
 			layoutMakerParameters.setWidgetRegistry(widgetRegistry);
@@ -88,9 +89,6 @@ public class TouchUIDialogFactory {
 
 			return new TouchUIDialog(parameters);
 
-		} catch (ClassNotFoundException e) {
-			throw new TouchUIDialogGenerationException(
-				"ClassNotFound exception encountered generating Touch UI Dialog", e);
 		} catch (LayoutMakerException e) {
 			throw new TouchUIDialogGenerationException("Layout Maker Exception encountered producing Dialog Layout", e);
 		}
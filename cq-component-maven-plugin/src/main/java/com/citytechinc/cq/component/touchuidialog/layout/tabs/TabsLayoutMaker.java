@@ -26,6 +26,7 @@ import org.codehaus.plexus.util.StringUtils;
 import com.citytechinc.cq.component.annotations.Component;
 import com.citytechinc.cq.component.annotations.Property;
 import com.citytechinc.cq.component.annotations.Tab;
+import com.citytechinc.cq.component.model.ComponentModel;
 import com.citytechinc.cq.component.touchuidialog.DefaultTouchUIDialogElement;
 import com.citytechinc.cq.component.touchuidialog.DefaultTouchUIDialogElementParameters;
 import com.citytechinc.cq.component.touchuidialog.TouchUIDialogElement;
@@ -89,11 +90,19 @@ public class TabsLayoutMaker extends AbstractLayoutMaker {
 		ItemsParameters itemsParameters = new ItemsParameters();
 		itemsParameters.setFieldName("items");
 
+		ComponentModel componentModel = parameters.getComponentModel();
+
+		// Custom dialog factories may not provide a Component Model
 		Component componentAnnotation = null;
-		try {
-			componentAnnotation = (Component) parameters.getComponentClass().getAnnotation(Component.class);
-		} catch (ClassNotFoundException e) {
-			throw new LayoutMakerException("Class Not Found Exception encountered looking up Component annotation", e);
+		if (componentModel != null) {
+			componentAnnotation = componentModel.getComponentAnnotation();
+		} else {
+			try {
+				componentAnnotation = (Component) parameters.getComponentClass().getAnnotation(Component.class);
+			} catch (ClassNotFoundException e) {
+				throw new LayoutMakerException("Class Not Found Exception encountered looking up Component annotation",
+					e);
+			}
 		}
 
 		// Determine the Tabs to create
@@ -173,9 +182,16 @@ public class TabsLayoutMaker extends AbstractLayoutMaker {
 
 		try {
 			// Populate the content for each tab
-			List<TouchUIWidgetMakerParameters> widgetMakerParameters =
-				TouchUIDialogUtil.getWidgetMakerParametersForComponentClass(parameters.getComponentClass(),
-					parameters.getClassLoader(), parameters.getClassPool(), parameters.getWidgetRegistry());
+			List<TouchUIWidgetMakerParameters> widgetMakerParameters;
+			if (componentModel != null) {
+				widgetMakerParameters =
+					TouchUIDialogUtil.getWidgetMakerParametersForComponentModel(componentModel,
+						parameters.getClassLoader(), parameters.getClassPool(), parameters.getWidgetRegistry());
+			} else {
+				widgetMakerParameters =
+					TouchUIDialogUtil.getWidgetMakerParametersForComponentClass(parameters.getComponentClass(),
+						parameters.getClassLoader(), parameters.getClassPool(), parameters.getWidgetRegistry());
+			}
 
 			for (TouchUIWidgetMakerParameters currentWidgetMakerParameters : widgetMakerParameters) {
 
@@ -15,30 +15,25 @@
  */
 package com.citytechinc.cq.component.touchuidialog.util;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.CtMember;
-import javassist.CtMethod;
 import javassist.NotFoundException;
 
-import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.codehaus.plexus.util.StringUtils;
 
-import com.citytechinc.cq.component.annotations.Component;
-import com.citytechinc.cq.component.annotations.DialogField;
-import com.citytechinc.cq.component.annotations.IgnoreDialogField;
 import com.citytechinc.cq.component.annotations.widgets.Selection;
-import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
 import com.citytechinc.cq.component.dialog.DialogFieldConfig;
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentClassException;
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentFieldException;
-import com.citytechinc.cq.component.dialog.util.DialogUtil;
+import com.citytechinc.cq.component.maven.util.ComponentDependencyTracker;
 import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
+import com.citytechinc.cq.component.maven.util.ComponentOutputSink;
+import com.citytechinc.cq.component.model.ComponentModel;
+import com.citytechinc.cq.component.model.factory.ComponentModelFactory;
 import com.citytechinc.cq.component.touchuidialog.TouchUIDialog;
 import com.citytechinc.cq.component.touchuidialog.exceptions.TouchUIDialogGenerationException;
 import com.citytechinc.cq.component.touchuidialog.exceptions.TouchUIDialogWriteException;
@@ -54,134 +49,87 @@ public class TouchUIDialogUtil {
 	private TouchUIDialogUtil() {
 	}
 
-	public static List<TouchUIDialog> buildDialogsFromClassList(List<CtClass> classList, ClassLoader classLoader,
-		ClassPool classPool, TouchUIWidgetRegistry widgetRegistry, ComponentNameTransformer transformer,
-		File buildDirectory, String componentPathBase, String defaultComponentPathSuffix,
-		ZipArchiveOutputStream archiveStream, Set<String> reservedNames) throws TouchUIDialogGenerationException,
-		TouchUIDialogWriteException, ClassNotFoundException, NotFoundException, InvalidComponentClassException {
+	public static List<TouchUIDialog> buildDialogsFromClassList(List<ComponentModel> componentModels,
+		ClassLoader classLoader, ClassPool classPool, TouchUIWidgetRegistry widgetRegistry,
+		ComponentOutputSink outputSink) throws TouchUIDialogGenerationException, TouchUIDialogWriteException,
+		ClassNotFoundException, NotFoundException, InvalidComponentClassException {
 
 		List<TouchUIDialog> dialogList = new ArrayList<TouchUIDialog>();
 
-		for (CtClass currentComponentClass : classList) {
-			TouchUIDialog currentDialog =
-				TouchUIDialogFactory.make(currentComponentClass, classLoader, classPool, widgetRegistry);
-
-			if (currentDialog != null && isWidgetInComponentClass(currentComponentClass)) {
-				File currentDialogOutput =
-					writeDialogToFile(transformer, currentDialog, currentComponentClass, buildDirectory,
-						componentPathBase, defaultComponentPathSuffix);
-				writeDialogToArchiveFile(transformer, currentDialogOutput, currentComponentClass, archiveStream,
-					reservedNames, componentPathBase, defaultComponentPathSuffix);
-				dialogList.add(currentDialog);
+		for (ComponentModel currentComponentModel : componentModels) {
+			if (currentComponentModel.hasTouchUIDialogFieldConfigs()) {
+				CtClass currentComponentClass = currentComponentModel.getComponentClass();
+				ComponentDependencyTracker.startComponent(currentComponentClass);
+				TouchUIDialog currentDialog;
+				try {
+					currentDialog =
+						TouchUIDialogFactory.make(currentComponentModel, classLoader, classPool, widgetRegistry);
+				} finally {
+					ComponentDependencyTracker.endComponent();
+				}
+
+				if (currentDialog != null) {
+					writeDialog(currentDialog, currentComponentClass, outputSink);
+					dialogList.add(currentDialog);
+				}
 			}
 		}
 
 		return dialogList;
 	}
 
-	public static File writeDialogToFile(ComponentNameTransformer transformer, TouchUIDialog dialog,
-		CtClass componentClass, File buildDirectory, String componentPathBase, String defaultComponentPathSuffix)
+	public static void writeDialog(TouchUIDialog dialog, CtClass componentClass, ComponentOutputSink outputSink)
 		throws TouchUIDialogWriteException {
 		try {
-			return ComponentMojoUtil.writeElementToFile(transformer, dialog, componentClass, buildDirectory,
-				componentPathBase, defaultComponentPathSuffix, dialog.getFileName());
+			ComponentMojoUtil.writeElementToSink(dialog, componentClass, dialog.getFileName(), outputSink);
 		} catch (Exception e) {
-			throw new TouchUIDialogWriteException("Exception encountered writing Dialog to File", e);
+			throw new TouchUIDialogWriteException("Exception encountered writing Dialog", e);
 		}
 	}
 
-	public static void writeDialogToArchiveFile(ComponentNameTransformer transformer, File dialogFile,
-		CtClass componentClass, ZipArchiveOutputStream archiveStream, Set<String> reservedNames,
-		String componentPathBase, String defaultComponentPathSuffix) throws TouchUIDialogWriteException {
+	public static List<TouchUIWidgetMakerParameters> getWidgetMakerParametersForComponentModel(
+		ComponentModel componentModel, ClassLoader classLoader, ClassPool classPool,
+		TouchUIWidgetRegistry widgetRegistry) {
 
-		try {
-			ComponentMojoUtil.writeElementToArchiveFile(transformer, dialogFile, componentClass, archiveStream,
-				reservedNames, componentPathBase, defaultComponentPathSuffix, "/" + dialogFile.getName());
-		} catch (Exception e) {
-			throw new TouchUIDialogWriteException("Exception encountered while writing Dialog File to Archive", e);
+		List<TouchUIWidgetMakerParameters> widgetMakerParametersList = new ArrayList<TouchUIWidgetMakerParameters>();
+
+		// Prepare the necessary widget maker parameters for each of the
+		// component's Touch UI dialog fields
+		for (DialogFieldConfig dialogFieldConfig : componentModel.getTouchUIDialogFieldConfigs()) {
+			TouchUIWidgetMakerParameters touchUIWidgetMakerParameters = new TouchUIWidgetMakerParameters();
+			touchUIWidgetMakerParameters.setClassLoader(classLoader);
+			touchUIWidgetMakerParameters.setContainingClassName(componentModel.getComponentClass().getName());
+			touchUIWidgetMakerParameters.setDialogFieldConfig(dialogFieldConfig);
+			touchUIWidgetMakerParameters.setClassPool(classPool);
+			touchUIWidgetMakerParameters.setUseDotSlashInName(true);
+			touchUIWidgetMakerParameters.setWidgetRegistry(widgetRegistry);
+			widgetMakerParametersList.add(touchUIWidgetMakerParameters);
 		}
 
+		return widgetMakerParametersList;
+
 	}
 
+	/**
+	 * @deprecated Use {@link #getWidgetMakerParametersForComponentModel} with
+	 *             the model built by {@link ComponentModelFactory}
+	 */
+	@Deprecated
 	public static List<TouchUIWidgetMakerParameters> getWidgetMakerParametersForComponentClass(CtClass componentClass,
 		ClassLoader classLoader, ClassPool classPool, TouchUIWidgetRegistry widgetRegistry) throws NotFoundException,
 		ClassNotFoundException, InvalidComponentClassException {
-
-		List<TouchUIWidgetMakerParameters> widgetMakerParametersList = new ArrayList<TouchUIWidgetMakerParameters>();
-
-		List<CtMember> fieldsAndMethods = new ArrayList<CtMember>();
-		Component componentAnnotation = (Component) componentClass.getAnnotation(Component.class);
-		fieldsAndMethods.addAll(ComponentMojoUtil.collectFields(componentClass,
-			componentAnnotation.suppressFieldInheritanceForTouchUI()));
-		fieldsAndMethods.addAll(ComponentMojoUtil.collectMethods(componentClass,
-			componentAnnotation.suppressFieldInheritanceForTouchUI()));
-
-		// Load the true class
-		Class<?> trueComponentClass = classLoader.loadClass(componentClass.getName());
-
-		// Iterate through all the fields creating configs for each and
-		// preparing the necessary widget maker parameters
-		for (CtMember member : fieldsAndMethods) {
-			if (!member.hasAnnotation(IgnoreDialogField.class)) {
-				DialogFieldConfig dialogFieldConfig = null;
-				if (member instanceof CtMethod) {
-					dialogFieldConfig = DialogUtil.getDialogFieldFromSuperClasses((CtMethod) member);
-				} else {
-					if (member.hasAnnotation(DialogField.class)) {
-						dialogFieldConfig =
-							new DialogFieldConfig((DialogField) member.getAnnotation(DialogField.class), member);
-					}
-				}
-
-				if (dialogFieldConfig != null && !dialogFieldConfig.isSuppressTouchUI()) {
-					TouchUIWidgetMakerParameters touchUIWidgetMakerParameters = new TouchUIWidgetMakerParameters();
-					touchUIWidgetMakerParameters.setClassLoader(classLoader);
-					touchUIWidgetMakerParameters.setContainingClass(trueComponentClass);
-					touchUIWidgetMakerParameters.setDialogFieldConfig(dialogFieldConfig);
-					touchUIWidgetMakerParameters.setClassPool(classPool);
-					touchUIWidgetMakerParameters.setUseDotSlashInName(true);
-					touchUIWidgetMakerParameters.setWidgetRegistry(widgetRegistry);
-					widgetMakerParametersList.add(touchUIWidgetMakerParameters);
-				}
-			}
-		}
-
-		return widgetMakerParametersList;
-
+		return getWidgetMakerParametersForComponentModel(ComponentModelFactory.make(componentClass, null),
+			classLoader, classPool, widgetRegistry);
 	}
 
+	/**
+	 * @deprecated Use {@link ComponentModel#hasTouchUIDialogFieldConfigs()}
+	 *             on the model built by {@link ComponentModelFactory}
+	 */
+	@Deprecated
 	public static boolean isWidgetInComponentClass(CtClass componentClass) throws NotFoundException,
 		ClassNotFoundException, InvalidComponentClassException {
-
-		List<CtMember> fieldsAndMethods = new ArrayList<CtMember>();
-		Component componentAnnotation = (Component) componentClass.getAnnotation(Component.class);
-		fieldsAndMethods.addAll(ComponentMojoUtil.collectFields(componentClass,
-			componentAnnotation.suppressFieldInheritanceForTouchUI()));
-		fieldsAndMethods.addAll(ComponentMojoUtil.collectMethods(componentClass,
-			componentAnnotation.suppressFieldInheritanceForTouchUI()));
-
-		// Iterate through all the fields creating configs for each and
-		// preparing the necessary widget maker parameters
-		for (CtMember member : fieldsAndMethods) {
-			if (!member.hasAnnotation(IgnoreDialogField.class)) {
-				DialogFieldConfig dialogFieldConfig = null;
-				if (member instanceof CtMethod) {
-					dialogFieldConfig = DialogUtil.getDialogFieldFromSuperClasses((CtMethod) member);
-				} else {
-					if (member.hasAnnotation(DialogField.class)) {
-						dialogFieldConfig =
-							new DialogFieldConfig((DialogField) member.getAnnotation(DialogField.class), member);
-					}
-				}
-
-				if (dialogFieldConfig != null && !dialogFieldConfig.isSuppressTouchUI()) {
-					return true;
-				}
-			}
-		}
-
-		return false;
-
+		return ComponentModelFactory.make(componentClass, null).hasTouchUIDialogFieldConfigs();
 	}
 
 	public static final List<com.citytechinc.cq.component.touchuidialog.widget.selection.options.Option>
@@ -221,6 +169,7 @@ public class TouchUIDialogUtil {
 		 * Enum definition
 		 */
 		else if (type.isEnum()) {
+			ComponentDependencyTracker.recordDependency(type.getName());
 			int i = 0;
 			try {
 				for (Object curEnumObject : classLoader.loadClass(type.getName()).getEnumConstants()) {
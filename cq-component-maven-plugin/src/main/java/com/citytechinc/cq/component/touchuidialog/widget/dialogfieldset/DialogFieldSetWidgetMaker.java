@@ -22,6 +22,7 @@ import com.citytechinc.cq.component.dialog.DialogFieldConfig;
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentClassException;
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentFieldException;
 import com.citytechinc.cq.component.dialog.util.DialogUtil;
+import com.citytechinc.cq.component.maven.util.ComponentDependencyTracker;
 import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
 import com.citytechinc.cq.component.touchuidialog.TouchUIDialogElement;
 import com.citytechinc.cq.component.touchuidialog.TouchUIDialogElementComparator;
@@ -69,7 +70,7 @@ public class DialogFieldSetWidgetMaker extends AbstractTouchUIWidgetMaker<Dialog
             throw new TouchUIDialogGenerationException(
                 "Exception encountered while constructing contained elements for the DialogFieldSet "
                     + parameters.getDialogFieldConfig().getFieldName() + " of class "
-                    + parameters.getContainingClass().getName(), e);
+                    + parameters.getContainingClassName(), e);
         }
 
         return new DialogFieldSetWidget(widgetParameters);
@@ -80,6 +81,8 @@ public class DialogFieldSetWidgetMaker extends AbstractTouchUIWidgetMaker<Dialog
         throws NotFoundException, InvalidComponentFieldException, ClassNotFoundException,
         TouchUIDialogGenerationException {
 
+        ComponentDependencyTracker.recordHierarchy(getCtType());
+
         List<CtMember> fieldsAndMethods = new ArrayList<CtMember>();
 
         fieldsAndMethods.addAll(ComponentMojoUtil.collectFields(getCtType()));
@@ -121,9 +124,8 @@ public class DialogFieldSetWidgetMaker extends AbstractTouchUIWidgetMaker<Dialog
                     }
 
                     TouchUIWidgetMakerParameters curFieldMember = new TouchUIWidgetMakerParameters();
-                    Class<?> fieldClass = parameters.getClassLoader().loadClass(member.getDeclaringClass().getName());
                     curFieldMember.setDialogFieldConfig(dialogFieldConfig);
-                    curFieldMember.setContainingClass(fieldClass);
+                    curFieldMember.setContainingClassName(member.getDeclaringClass().getName());
                     curFieldMember.setClassLoader(parameters.getClassLoader());
                     curFieldMember.setClassPool(parameters.getClassPool());
                     curFieldMember.setWidgetRegistry(parameters.getWidgetRegistry());
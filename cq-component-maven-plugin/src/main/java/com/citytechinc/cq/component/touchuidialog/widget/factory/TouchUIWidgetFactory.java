@@ -15,16 +15,23 @@
  */
 package com.citytechinc.cq.component.touchuidialog.widget.factory;
 
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.Nullable;
 
 import org.codehaus.plexus.util.StringUtils;
 
 import com.citytechinc.cq.component.dialog.exception.InvalidComponentFieldException;
+import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
 import com.citytechinc.cq.component.touchuidialog.TouchUIDialogElement;
 import com.citytechinc.cq.component.touchuidialog.exceptions.TouchUIDialogGenerationException;
 import com.citytechinc.cq.component.touchuidialog.widget.maker.DefaultTouchUIWidgetMaker;
 import com.citytechinc.cq.component.touchuidialog.widget.maker.TouchUIWidgetMaker;
 import com.citytechinc.cq.component.touchuidialog.widget.maker.TouchUIWidgetMakerParameters;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.IndexedTouchUIWidgetRegistry;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.TouchUIWidgetRegistry;
 import com.citytechinc.cq.component.util.TouchUIWidgetConfigHolder;
 
 public class TouchUIWidgetFactory {
@@ -38,7 +45,7 @@ public class TouchUIWidgetFactory {
 
 			try {
 				TouchUIWidgetMaker widgetMaker =
-					context.getMakerClass().getConstructor(TouchUIWidgetMakerParameters.class)
+					getWidgetMakerConstructor(widgetMakerParameters.getWidgetRegistry(), context.getMakerClass())
 						.newInstance(widgetMakerParameters);
 				return widgetMaker.make();
 			} catch (Exception e) {
@@ -50,6 +57,16 @@ public class TouchUIWidgetFactory {
 		return null;
 	}
 
+	private static Constructor<? extends TouchUIWidgetMaker> getWidgetMakerConstructor(
+		TouchUIWidgetRegistry widgetRegistry, Class<? extends TouchUIWidgetMaker> makerClass)
+		throws NoSuchMethodException {
+		if (widgetRegistry instanceof IndexedTouchUIWidgetRegistry) {
+			return ((IndexedTouchUIWidgetRegistry) widgetRegistry).getWidgetMakerConstructor(makerClass);
+		}
+
+		return makerClass.getConstructor(TouchUIWidgetMakerParameters.class);
+	}
+
 	public static TouchUIWidgetMakerContext getWidgetMakerForMemberParameters(TouchUIWidgetMakerParameters parameters,
 		int rankingCeiling) throws InvalidComponentFieldException {
 		TouchUIWidgetConfigHolder widgetConfig = getWidgetConfigForParameters(parameters, rankingCeiling);
@@ -82,7 +99,8 @@ public class TouchUIWidgetFactory {
 	/**
 	 * Looks up the highest ranked TouchUIWidget based annotation tied to the
 	 * member in question and returns the configuration associated with the
-	 * annotation if found.
+	 * annotation if found. Registries offering indexed lookups are asked for
+	 * the annotations present on the member only.
 	 *
 	 * @param parameters The parameters identifying the Component member being
 	 *            processed
@@ -95,15 +113,11 @@ public class TouchUIWidgetFactory {
 		int rankingCeiling) {
 		TouchUIWidgetConfigHolder highestRankedConfig = null;
 
-		for (Class<?> currentWidgetAnnotation : parameters.getWidgetRegistry().getRegisteredAnnotations()) {
-			if (parameters.getCtMember().hasAnnotation(currentWidgetAnnotation)) {
-				TouchUIWidgetConfigHolder potentialWidgetConfig =
-					parameters.getWidgetRegistry().getWidgetForAnnotation(currentWidgetAnnotation);
-				if (rankingCeiling < 0 || potentialWidgetConfig.getRanking() < rankingCeiling) {
-					if (highestRankedConfig == null
-						|| highestRankedConfig.getRanking() < potentialWidgetConfig.getRanking()) {
-						highestRankedConfig = potentialWidgetConfig;
-					}
+		for (TouchUIWidgetConfigHolder potentialWidgetConfig : getWidgetConfigsForMember(parameters)) {
+			if (rankingCeiling < 0 || potentialWidgetConfig.getRanking() < rankingCeiling) {
+				if (highestRankedConfig == null
+					|| highestRankedConfig.getRanking() < potentialWidgetConfig.getRanking()) {
+					highestRankedConfig = potentialWidgetConfig;
 				}
 			}
 		}
@@ -111,14 +125,50 @@ public class TouchUIWidgetFactory {
 		return highestRankedConfig;
 	}
 
+	private static List<TouchUIWidgetConfigHolder> getWidgetConfigsForMember(TouchUIWidgetMakerParameters parameters) {
+		TouchUIWidgetRegistry widgetRegistry = parameters.getWidgetRegistry();
+
+		List<TouchUIWidgetConfigHolder> widgetConfigs = new ArrayList<TouchUIWidgetConfigHolder>();
+
+		if (widgetRegistry instanceof IndexedTouchUIWidgetRegistry) {
+			for (String currentAnnotationName : ComponentMojoUtil.getAnnotationNames(parameters.getCtMember())) {
+				TouchUIWidgetConfigHolder potentialWidgetConfig =
+					((IndexedTouchUIWidgetRegistry) widgetRegistry).getWidgetForAnnotationName(currentAnnotationName);
+				if (potentialWidgetConfig != null) {
+					widgetConfigs.add(potentialWidgetConfig);
+				}
+			}
+		} else {
+			for (Class<?> currentWidgetAnnotation : widgetRegistry.getRegisteredAnnotations()) {
+				if (parameters.getCtMember().hasAnnotation(currentWidgetAnnotation)) {
+					widgetConfigs.add(widgetRegistry.getWidgetForAnnotation(currentWidgetAnnotation));
+				}
+			}
+		}
+
+		return widgetConfigs;
+	}
+
 	@Nullable
 	private static TouchUIWidgetConfigHolder getWidgetConfigForResourceType(String resourceType,
 		TouchUIWidgetMakerParameters parameters, int rankingCeiling) {
+		TouchUIWidgetRegistry widgetRegistry = parameters.getWidgetRegistry();
+
+		if (widgetRegistry instanceof IndexedTouchUIWidgetRegistry) {
+			for (TouchUIWidgetConfigHolder currentConfig : ((IndexedTouchUIWidgetRegistry) widgetRegistry)
+				.getWidgetsForResourceType(resourceType)) {
+				if (rankingCeiling < 0 || currentConfig.getRanking() < rankingCeiling) {
+					return currentConfig;
+				}
+			}
+
+			return null;
+		}
+
 		TouchUIWidgetConfigHolder highestRankedConfig = null;
 
-		for (Class<?> currentWidgetAnnotation : parameters.getWidgetRegistry().getRegisteredAnnotations()) {
-			TouchUIWidgetConfigHolder currentConfig =
-				parameters.getWidgetRegistry().getWidgetForAnnotation(currentWidgetAnnotation);
+		for (Class<?> currentWidgetAnnotation : widgetRegistry.getRegisteredAnnotations()) {
+			TouchUIWidgetConfigHolder currentConfig = widgetRegistry.getWidgetForAnnotation(currentWidgetAnnotation);
 
 			if (resourceType.equals(currentConfig.getResourceType())
 				&& (rankingCeiling < 0 || currentConfig.getRanking() < rankingCeiling)) {
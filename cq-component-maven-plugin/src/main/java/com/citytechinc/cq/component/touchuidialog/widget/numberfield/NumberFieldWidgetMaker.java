@@ -77,7 +77,7 @@ public class NumberFieldWidgetMaker extends AbstractTouchUIWidgetMaker<NumberFie
 						+ " was defined for field "
 						+ getFieldNameForField()
 						+ " of class "
-						+ parameters.getContainingClass().getName()
+						+ parameters.getContainingClassName()
 						+ ". Non-integer steps will cause the increment and decrement buttons of the number field to misbehave.");
 		}
 		return step;
@@ -15,34 +15,50 @@
  */
 package com.citytechinc.cq.component.touchuidialog.widget.registry;
 
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.citytechinc.cq.component.maven.util.LogSingleton;
 import javassist.ClassPool;
 import javassist.NotFoundException;
 
 import org.codehaus.plexus.util.StringUtils;
-import org.reflections.Reflections;
 
+import com.citytechinc.cq.component.maven.util.AnnotationIndex;
 import com.citytechinc.cq.component.maven.util.ComponentMojoUtil;
+import com.citytechinc.cq.component.touchuidialog.widget.maker.AbstractTouchUIWidgetMaker;
+import com.citytechinc.cq.component.touchuidialog.widget.maker.TouchUIWidgetMaker;
+import com.citytechinc.cq.component.touchuidialog.widget.maker.TouchUIWidgetMakerParameters;
 import com.citytechinc.cq.component.util.TouchUIWidgetConfigHolder;
 
-public class DefaultTouchUIWidgetRegistry implements TouchUIWidgetRegistry {
+public class DefaultTouchUIWidgetRegistry implements IndexedTouchUIWidgetRegistry {
 	private static final String DEFAULT_COMPONENT_PACKAGE = "com.citytechinc.cq.component.touchuidialog";
 
 	private final Map<Class<?>, TouchUIWidgetConfigHolder> annotationToWidgetConfigMap;
 
-	public DefaultTouchUIWidgetRegistry(ClassPool classPool, ClassLoader classLoader, Reflections reflections,
+	private final Map<String, TouchUIWidgetConfigHolder> annotationNameToWidgetConfigMap;
+
+	private final Map<String, List<TouchUIWidgetConfigHolder>> resourceTypeToWidgetConfigsMap;
+
+	private final Map<Class<? extends TouchUIWidgetMaker>, Constructor<? extends TouchUIWidgetMaker>> makerConstructorMap =
+		new ConcurrentHashMap<Class<? extends TouchUIWidgetMaker>, Constructor<? extends TouchUIWidgetMaker>>();
+
+	private final Map<Class<? extends TouchUIWidgetMaker>, Class<?>> makerParametersClassMap =
+		new ConcurrentHashMap<Class<? extends TouchUIWidgetMaker>, Class<?>>();
+
+	public DefaultTouchUIWidgetRegistry(ClassPool classPool, ClassLoader classLoader, AnnotationIndex annotationIndex,
 		List<String> additionalFeatures) throws NotFoundException, ClassNotFoundException {
 		annotationToWidgetConfigMap = new HashMap<Class<?>, TouchUIWidgetConfigHolder>();
 
 		List<TouchUIWidgetConfigHolder> widgetConfigurations =
-			ComponentMojoUtil.getAllTouchUIWidgetAnnotations(classPool, classLoader, reflections);
+			ComponentMojoUtil.getAllTouchUIWidgetAnnotations(classPool, classLoader, annotationIndex);
 
 		/*
 		 * When two Widget types are configured for the same Widget Annotation, this sort will order using the
@@ -116,6 +132,58 @@ public class DefaultTouchUIWidgetRegistry implements TouchUIWidgetRegistry {
 					currentWidgetConfiguration);
 			}
 		}
+
+		annotationNameToWidgetConfigMap = new HashMap<String, TouchUIWidgetConfigHolder>();
+
+		resourceTypeToWidgetConfigsMap = new HashMap<String, List<TouchUIWidgetConfigHolder>>();
+
+		for (TouchUIWidgetConfigHolder currentWidgetConfiguration : annotationToWidgetConfigMap.values()) {
+			annotationNameToWidgetConfigMap.put(currentWidgetConfiguration.getAnnotationClass().getName(),
+				currentWidgetConfiguration);
+
+			String resourceType = currentWidgetConfiguration.getResourceType();
+			if (resourceType != null) {
+				List<TouchUIWidgetConfigHolder> resourceTypeConfigurations =
+					resourceTypeToWidgetConfigsMap.get(resourceType);
+				if (resourceTypeConfigurations == null) {
+					resourceTypeConfigurations = new ArrayList<TouchUIWidgetConfigHolder>();
+					resourceTypeToWidgetConfigsMap.put(resourceType, resourceTypeConfigurations);
+				}
+				resourceTypeConfigurations.add(currentWidgetConfiguration);
+			}
+		}
+
+		for (List<TouchUIWidgetConfigHolder> currentConfigurations : resourceTypeToWidgetConfigsMap.values()) {
+			Collections.sort(currentConfigurations, new Comparator<TouchUIWidgetConfigHolder>() {
+
+				@Override
+				public int compare(TouchUIWidgetConfigHolder widgetConfig1, TouchUIWidgetConfigHolder widgetConfig2) {
+					if (widgetConfig1.getRanking() > widgetConfig2.getRanking()) {
+						return -1;
+					}
+					if (widgetConfig1.getRanking() < widgetConfig2.getRanking()) {
+						return 1;
+					}
+					return 0;
+				}
+			});
+		}
+
+		/*
+		 * Look up the constructor of each registered Widget Maker once up front.
+		 * Widget Makers without a suitable constructor fail when they are used.
+		 */
+		for (TouchUIWidgetConfigHolder currentWidgetConfiguration : annotationToWidgetConfigMap.values()) {
+			if (currentWidgetConfiguration.getMakerClass() != null) {
+				try {
+					getWidgetMakerConstructor(currentWidgetConfiguration.getMakerClass());
+				} catch (NoSuchMethodException e) {
+					LogSingleton.getInstance().debug(
+						"Widget Maker " + currentWidgetConfiguration.getMakerClass()
+							+ " has no TouchUIWidgetMakerParameters constructor");
+				}
+			}
+		}
 	}
 
 	@Override
@@ -123,6 +191,48 @@ public class DefaultTouchUIWidgetRegistry implements TouchUIWidgetRegistry {
 		return annotationToWidgetConfigMap.get(annotation);
 	}
 
+	@Override
+	public TouchUIWidgetConfigHolder getWidgetForAnnotationName(String annotationName) {
+		return annotationNameToWidgetConfigMap.get(annotationName);
+	}
+
+	@Override
+	public List<TouchUIWidgetConfigHolder> getWidgetsForResourceType(String resourceType) {
+		List<TouchUIWidgetConfigHolder> resourceTypeConfigurations =
+			resourceTypeToWidgetConfigsMap.get(resourceType);
+
+		if (resourceTypeConfigurations == null) {
+			return Collections.emptyList();
+		}
+
+		return Collections.unmodifiableList(resourceTypeConfigurations);
+	}
+
+	@Override
+	public Constructor<? extends TouchUIWidgetMaker> getWidgetMakerConstructor(
+		Class<? extends TouchUIWidgetMaker> makerClass) throws NoSuchMethodException {
+		Constructor<? extends TouchUIWidgetMaker> makerConstructor = makerConstructorMap.get(makerClass);
+
+		if (makerConstructor == null) {
+			makerConstructor = makerClass.getConstructor(TouchUIWidgetMakerParameters.class);
+			makerConstructorMap.put(makerClass, makerConstructor);
+		}
+
+		return makerConstructor;
+	}
+
+	@Override
+	public Class<?> getWidgetParametersClass(Class<? extends TouchUIWidgetMaker> makerClass) {
+		Class<?> parametersClass = makerParametersClassMap.get(makerClass);
+
+		if (parametersClass == null) {
+			parametersClass = AbstractTouchUIWidgetMaker.getParametersClass(makerClass);
+			makerParametersClassMap.put(makerClass, parametersClass);
+		}
+
+		return parametersClass;
+	}
+
 	@Override
 	public Set<Class<?>> getRegisteredAnnotations() {
 		return annotationToWidgetConfigMap.keySet();
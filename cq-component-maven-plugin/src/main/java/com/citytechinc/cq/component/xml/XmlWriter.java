@@ -15,35 +15,53 @@
  */
 package com.citytechinc.cq.component.xml;
 
+import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.codehaus.plexus.util.StringUtils;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
+/**
+ * Serializes a tree of {@link XmlElement}s directly to an output stream.
+ * <p>
+ * The output is the same as that of the JDK's indenting identity Transformer
+ * applied to a DOM built from the tree, without building the DOM. Attributes
+ * are written in the order of their qualified names and namespace
+ * declarations are written on the first element which uses them, in front of
+ * the first attribute needing them or after the attributes when only the
+ * element's own name needs them.
+ * <p>
+ * XmlWriter is safe for use by several threads at once. The serialization
+ * plans of element classes are shared between threads, while each thread
+ * serializes into a buffer of its own which it reuses for every document it
+ * writes. Callers must not share an output stream or an element tree which
+ * is still being modified between threads.
+ */
 public class XmlWriter {
 
-	private static final DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-	private static final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+	private static final String ENCODING = "UTF-8";
+	private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"" + ENCODING
+		+ "\" standalone=\"no\"?>";
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+	private static final String INDENT = "  ";
+
+	private static final String XML_PREFIX = "xml";
+	private static final String XML_NS_URI = "http://www.w3.org/XML/1998/namespace";
+	private static final String XMLNS_PREFIX = "xmlns";
+	private static final String GENERATED_PREFIX = "ns";
+
 	private static final List<String> DO_NOT_CALL = Arrays.asList("getNameSpace", "getContainedElements",
 		"getFieldName", "getClass", "getRanking");
 
@@ -57,109 +75,182 @@ public class XmlWriter {
 		TYPES_WITH_PREFIXES.add(Boolean.class);
 	}
 
+	private static final ConcurrentMap<Class<?>, ElementPlan> ELEMENT_PLANS =
+		new ConcurrentHashMap<Class<?>, ElementPlan>();
+
+	private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+	private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * The buffer each thread serializes into before the document is encoded,
+	 * reused between documents written by the thread.
+	 */
+	private static final ThreadLocal<StringBuilder> BUFFERS = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(INITIAL_BUFFER_SIZE);
+		}
+	};
+
 	private XmlWriter() {
 	}
 
-	public static void writeXml(XmlElement rootXmlElement, OutputStream outputStream)
-		throws ParserConfigurationException, TransformerException, IllegalArgumentException, SecurityException,
-		IllegalAccessException, InvocationTargetException, NoSuchMethodException {
-		Document xmlDocument = makeDocument(rootXmlElement);
+	/**
+	 * Writes the provided element and the elements it contains as a UTF-8
+	 * encoded XML document. The output stream is flushed but not closed.
+	 *
+	 * @param rootXmlElement
+	 * @param outputStream
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 * @throws SecurityException
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	public static void writeXml(XmlElement rootXmlElement, OutputStream outputStream) throws IOException,
+		IllegalArgumentException, SecurityException, IllegalAccessException, InvocationTargetException,
+		NoSuchMethodException {
+		outputStream.write(toByteArray(rootXmlElement));
+		outputStream.flush();
+	}
+
+	/**
+	 * Serializes the provided element and the elements it contains as a UTF-8
+	 * encoded XML document held in memory, ready to be written to any number
+	 * of destinations.
+	 *
+	 * @param rootXmlElement
+	 * @return The encoded document
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 * @throws SecurityException
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 * @throws NoSuchMethodException
+	 */
+	public static byte[] toByteArray(XmlElement rootXmlElement) throws IOException, IllegalArgumentException,
+		SecurityException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+		StringBuilder buffer = BUFFERS.get();
+		buffer.setLength(0);
 
-		Transformer transformer = transformerFactory.newTransformer();
-		transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-		transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+		try {
+			buffer.append(XML_DECLARATION);
+			buffer.append(LINE_SEPARATOR);
 
-		DOMSource domSource = new DOMSource(xmlDocument);
+			writeElement(rootXmlElement, new NamespaceScope(null), 0, buffer);
 
-		StreamResult resultStream = new StreamResult(outputStream);
+			buffer.append(LINE_SEPARATOR);
 
-		transformer.transform(domSource, resultStream);
+			return buffer.toString().getBytes(ENCODING);
+		} finally {
+			if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+				BUFFERS.remove();
+			} else {
+				buffer.setLength(0);
+			}
+		}
 	}
 
-	@SuppressWarnings({ "all" })
-	private static Element createElement(XmlElement xmlElement, Document document) throws IllegalArgumentException,
-		IllegalAccessException, InvocationTargetException, SecurityException, NoSuchMethodException {
-		Class xmlClass = xmlElement.getClass();
-		Method namespaceMethod = xmlClass.getMethod("getNameSpace", null);
-		String namespace = (String) namespaceMethod.invoke(xmlElement, null);
-		Method fieldNameMethod = xmlClass.getMethod("getFieldName", null);
-		String fieldName = sanitize((String) fieldNameMethod.invoke(xmlElement, null));
-		Method containedElementsMethod = xmlClass.getMethod("getContainedElements", null);
-		List<XmlElement> containedElementsReturn = (List<XmlElement>) containedElementsMethod.invoke(xmlElement, null);
-		Element createdElement;
-		if (StringUtils.isEmpty(namespace)) {
-			createdElement = document.createElement(fieldName);
-		} else {
-			createdElement = document.createElementNS(namespace, fieldName);
-		}
-		Method[] methods = xmlElement.getClass().getMethods();
-		for (Method method : methods) {
-			String methodName = method.getName();
-			if (!DO_NOT_CALL.contains(methodName) && (methodName.startsWith("get") || methodName.startsWith("is"))) {
-				Object methodReturn = method.invoke(xmlElement, null);
-				if (methodReturn != null) {
-					if (methodReturn instanceof Map<?, ?>) {
-						Map<?, ?> returnMap = (Map<?, ?>) methodReturn;
-						for (Entry<?, ?> entry : returnMap.entrySet()) {
-							String key = entry.getKey().toString();
-							Object value = entry.getValue();
-							if (value instanceof NameSpacedAttribute<?>) {
-								NameSpacedAttribute<?> nsa = (NameSpacedAttribute<?>) value;
-								setPropertyOnElement(createdElement, nsa.getNameSpace(), nsa.getNameSpacePrefix(),
-									StringUtils.isNotEmpty(nsa.getName()) ? nsa.getName() : key, nsa.getValue());
-							} else {
-								setPropertyOnElement(createdElement, null, null, key, value);
-							}
+	@SuppressWarnings("unchecked")
+	private static void writeElement(XmlElement xmlElement, NamespaceScope parentScope, int depth,
+		StringBuilder buffer) throws IOException, IllegalArgumentException, IllegalAccessException,
+		InvocationTargetException, SecurityException, NoSuchMethodException {
+		ElementPlan plan = getElementPlan(xmlElement.getClass());
+		String namespace = (String) plan.namespaceMethod.invoke(xmlElement);
+		String fieldName = sanitize((String) plan.fieldNameMethod.invoke(xmlElement));
+		List<XmlElement> containedElementsReturn = (List<XmlElement>) plan.containedElementsMethod.invoke(xmlElement);
+		ElementAttributes attributes = new ElementAttributes();
+		for (PropertyAccessor accessor : plan.propertyAccessors) {
+			Object methodReturn = accessor.method.invoke(xmlElement);
+			if (methodReturn != null) {
+				if (methodReturn instanceof Map<?, ?>) {
+					Map<?, ?> returnMap = (Map<?, ?>) methodReturn;
+					for (Entry<?, ?> entry : returnMap.entrySet()) {
+						String key = entry.getKey().toString();
+						Object value = entry.getValue();
+						if (value instanceof NameSpacedAttribute<?>) {
+							NameSpacedAttribute<?> nsa = (NameSpacedAttribute<?>) value;
+							setProperty(attributes, nsa.getNameSpace(), nsa.getNameSpacePrefix(),
+								StringUtils.isNotEmpty(nsa.getName()) ? nsa.getName() : key, nsa.getValue());
+						} else {
+							setProperty(attributes, null, null, key, value);
 						}
-					} else if (methodReturn instanceof NameSpacedAttribute<?>) {
-						NameSpacedAttribute<?> nsa = (NameSpacedAttribute<?>) methodReturn;
-						Object nsaObject = nsa.getValue();
-						if (nsaObject != null) {
-							if (nsaObject instanceof List<?>) {
-								List<?> listReturn = (List<?>) nsaObject;
-								nsaObject = generateStringFromList(listReturn);
-							} else if (nsaObject.getClass().isArray()) {
-								Object[] arrayReturn = (Object[]) nsaObject;
-								nsaObject = generateStringFromArray(arrayReturn);
-							}
-							setPropertyOnElementForMethod(createdElement, nsa.getNameSpace(), nsa.getNameSpacePrefix(),
-								StringUtils.isNotEmpty(nsa.getName()) ? nsa.getName() : methodName, nsaObject);
+					}
+				} else if (methodReturn instanceof NameSpacedAttribute<?>) {
+					NameSpacedAttribute<?> nsa = (NameSpacedAttribute<?>) methodReturn;
+					Object nsaObject = nsa.getValue();
+					if (nsaObject != null) {
+						if (nsaObject instanceof List<?>) {
+							List<?> listReturn = (List<?>) nsaObject;
+							nsaObject = generateStringFromList(listReturn);
+						} else if (nsaObject.getClass().isArray()) {
+							Object[] arrayReturn = (Object[]) nsaObject;
+							nsaObject = generateStringFromArray(arrayReturn);
 						}
-					} else if (methodReturn instanceof List<?>) {
-						List<?> listReturn = (List<?>) methodReturn;
-						setPropertyOnElementForMethod(createdElement, null, null, methodName,
-							generateStringFromList(listReturn));
-					} else if (methodReturn.getClass().isArray()) {
-						Object[] arrayReturn = (Object[]) methodReturn;
-						setPropertyOnElementForMethod(createdElement, null, null, methodName,
-							generateStringFromArray(arrayReturn));
-					} else {
-						setPropertyOnElementForMethod(createdElement, null, null, methodName, methodReturn);
+						setProperty(attributes, nsa.getNameSpace(), nsa.getNameSpacePrefix(),
+							StringUtils.isNotEmpty(nsa.getName()) ? getPropertyName(nsa.getName())
+								: accessor.propertyName, nsaObject);
 					}
+				} else if (methodReturn instanceof List<?>) {
+					List<?> listReturn = (List<?>) methodReturn;
+					setProperty(attributes, null, null, accessor.propertyName, generateStringFromList(listReturn));
+				} else if (methodReturn.getClass().isArray()) {
+					Object[] arrayReturn = (Object[]) methodReturn;
+					setProperty(attributes, null, null, accessor.propertyName, generateStringFromArray(arrayReturn));
+				} else {
+					setProperty(attributes, null, null, accessor.propertyName, methodReturn);
 				}
 			}
 		}
+
+		NamespaceScope scope = new NamespaceScope(parentScope);
+		StartTag startTag = new StartTag(scope);
+		startTag.addAttributes(attributes);
+		if (StringUtils.isNotEmpty(namespace)) {
+			startTag.declareNamespace(getPrefix(fieldName), namespace);
+		}
+
+		if (depth > 0) {
+			writeIndent(depth, buffer);
+		}
+		buffer.append('<');
+		buffer.append(fieldName);
+		startTag.write(buffer);
+
 		if (containedElementsReturn != null && containedElementsReturn.size() > 0) {
+			buffer.append('>');
 			for (XmlElement de : containedElementsReturn) {
-				createdElement.appendChild(createElement(de, document));
+				writeElement(de, scope, depth + 1, buffer);
 			}
+			writeIndent(depth, buffer);
+			buffer.append("</");
+			buffer.append(fieldName);
+			buffer.append('>');
+		} else {
+			buffer.append("/>");
 		}
-		return createdElement;
 	}
 
-	private static Document makeDocument(XmlElement rootXmlElement) throws ParserConfigurationException,
-		IllegalArgumentException, SecurityException, IllegalAccessException, InvocationTargetException,
-		NoSuchMethodException {
-
-		DocumentBuilder documentBuilder = docFactory.newDocumentBuilder();
-
-		Document document = documentBuilder.newDocument();
+	/**
+	 * Discards the serialization plans of all element classes written so far.
+	 */
+	public static void clearElementPlans() {
+		ELEMENT_PLANS.clear();
+	}
 
-		Element jcrRootElement = createElement(rootXmlElement, document);
+	private static ElementPlan getElementPlan(Class<?> xmlClass) throws NoSuchMethodException {
+		ElementPlan plan = ELEMENT_PLANS.get(xmlClass);
 
-		document.appendChild(jcrRootElement);
+		if (plan == null) {
+			plan = new ElementPlan(xmlClass);
+			ElementPlan existingPlan = ELEMENT_PLANS.putIfAbsent(xmlClass, plan);
+			if (existingPlan != null) {
+				plan = existingPlan;
+			}
+		}
 
-		return document;
+		return plan;
 	}
 
 	private static String sanitize(String uncleanString) {
@@ -170,21 +261,17 @@ public class XmlWriter {
 		return uncleanString;
 	}
 
-	private static void setPropertyOnElementForMethod(Element element, String nameSpace, String nameSpacePrefix,
-		String methodName, Object methodReturn) {
-		String propertyName = null;
+	private static String getPropertyName(String methodName) {
 		if (methodName.startsWith("get")) {
-			propertyName = StringUtils.lowercaseFirstLetter(methodName.substring(3));
+			return StringUtils.lowercaseFirstLetter(methodName.substring(3));
 		} else if (methodName.startsWith("is")) {
-			propertyName = StringUtils.lowercaseFirstLetter(methodName.substring(2));
-		} else {
-			propertyName = methodName;
+			return StringUtils.lowercaseFirstLetter(methodName.substring(2));
 		}
-		setPropertyOnElement(element, nameSpace, nameSpacePrefix, propertyName, methodReturn);
+		return methodName;
 	}
 
-	private static void setPropertyOnElement(Element element, String nameSpace, String nameSpacePrefix, String name,
-		Object value) {
+	private static void setProperty(ElementAttributes attributes, String nameSpace, String nameSpacePrefix,
+		String name, Object value) {
 		if (value != null) {
 			String propertyValue = value.toString();
 
@@ -195,12 +282,12 @@ public class XmlWriter {
 			}
 
 			if (StringUtils.isEmpty(nameSpace)) {
-				element.setAttribute(name, propertyValue);
+				attributes.set(null, name, propertyValue);
 			} else {
 				if (StringUtils.isNotEmpty(nameSpacePrefix)) {
-					element.setAttributeNS(nameSpace, nameSpacePrefix + ":" + name, propertyValue);
+					attributes.set(nameSpace, nameSpacePrefix + ":" + name, propertyValue);
 				} else {
-					element.setAttributeNS(nameSpace, name, propertyValue);
+					attributes.set(nameSpace, name, propertyValue);
 				}
 			}
 		}
@@ -217,4 +304,326 @@ public class XmlWriter {
 		sb.append("[").append(StringUtils.join(array, ",")).append("]");
 		return sb.toString();
 	}
+
+	private static void writeIndent(int depth, StringBuilder buffer) {
+		buffer.append(LINE_SEPARATOR);
+		for (int i = 0; i < depth; i++) {
+			buffer.append(INDENT);
+		}
+	}
+
+	private static void writeAttributeValue(String value, StringBuilder buffer) throws IOException {
+		for (int i = 0; i < value.length(); i++) {
+			char ch = value.charAt(i);
+			switch (ch) {
+				case '&':
+					buffer.append("&amp;");
+					break;
+				case '<':
+					buffer.append("&lt;");
+					break;
+				case '>':
+					buffer.append("&gt;");
+					break;
+				case '"':
+					buffer.append("&quot;");
+					break;
+				default:
+					if (ch < 0x20) {
+						writeCharacterReference(ch, buffer);
+					} else if (Character.isHighSurrogate(ch) && i + 1 < value.length()
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+						writeCharacterReference(Character.toCodePoint(ch, value.charAt(++i)), buffer);
+					} else if (Character.isHighSurrogate(ch) || Character.isLowSurrogate(ch)) {
+						throw new IOException("Invalid UTF-16 surrogate detected: " + Integer.toHexString(ch));
+					} else {
+						buffer.append(ch);
+					}
+			}
+		}
+	}
+
+	private static void writeCharacterReference(int codePoint, StringBuilder buffer) {
+		buffer.append("&#");
+		buffer.append(Integer.toString(codePoint));
+		buffer.append(';');
+	}
+
+	private static String getPrefix(String qualifiedName) {
+		int colon = qualifiedName.lastIndexOf(':');
+		return colon > 0 ? qualifiedName.substring(0, colon) : "";
+	}
+
+	/**
+	 * The accessors of an element class, looked up once and reused for every
+	 * element of the class. The property accessors are the class's public
+	 * getters, in the order reported by {@link Class#getMethods()}, less those
+	 * in {@link #DO_NOT_CALL}.
+	 */
+	private static class ElementPlan {
+		private final Method namespaceMethod;
+		private final Method fieldNameMethod;
+		private final Method containedElementsMethod;
+		private final List<PropertyAccessor> propertyAccessors = new ArrayList<PropertyAccessor>();
+
+		private ElementPlan(Class<?> xmlClass) throws NoSuchMethodException {
+			namespaceMethod = xmlClass.getMethod("getNameSpace");
+			fieldNameMethod = xmlClass.getMethod("getFieldName");
+			containedElementsMethod = xmlClass.getMethod("getContainedElements");
+
+			for (Method method : xmlClass.getMethods()) {
+				String methodName = method.getName();
+				if (!DO_NOT_CALL.contains(methodName)
+					&& (methodName.startsWith("get") || methodName.startsWith("is"))) {
+					propertyAccessors.add(new PropertyAccessor(method, getPropertyName(methodName)));
+				}
+			}
+		}
+	}
+
+	private static class PropertyAccessor {
+		private final Method method;
+		private final String propertyName;
+
+		private PropertyAccessor(Method method, String propertyName) {
+			this.method = method;
+			this.propertyName = propertyName;
+		}
+	}
+
+	private static class Attribute {
+		private final String namespace;
+		private final String localName;
+		private String qualifiedName;
+		private String value;
+
+		private Attribute(String namespace, String localName, String qualifiedName, String value) {
+			this.namespace = namespace;
+			this.localName = localName;
+			this.qualifiedName = qualifiedName;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * The attributes set on an element, kept in the order of their qualified
+	 * names. An attribute set without a namespace replaces the value of an
+	 * attribute with the same qualified name. An attribute set with a
+	 * namespace replaces an attribute with the same namespace and local name,
+	 * taking over its qualified name, and is otherwise added next to any
+	 * attribute of the same qualified name.
+	 */
+	private static class ElementAttributes {
+		private final List<Attribute> attributes = new ArrayList<Attribute>();
+
+		private void set(String namespace, String qualifiedName, String value) {
+			if (namespace == null) {
+				int index = findByQualifiedName(qualifiedName);
+				if (index >= 0) {
+					attributes.get(index).value = value;
+				} else {
+					attributes.add(-1 - index, new Attribute(null, null, qualifiedName, value));
+				}
+				return;
+			}
+
+			int colon = qualifiedName.indexOf(':');
+			if (colon == 0 || colon != qualifiedName.lastIndexOf(':')) {
+				throw new IllegalArgumentException("Invalid qualified name " + qualifiedName + " for namespace "
+					+ namespace);
+			}
+
+			String localName = qualifiedName.substring(colon + 1);
+			int index = findByNamespace(namespace, localName);
+			if (index >= 0) {
+				Attribute existingAttribute = attributes.get(index);
+				existingAttribute.value = value;
+				if (!qualifiedName.equals(existingAttribute.qualifiedName)) {
+					existingAttribute.qualifiedName = qualifiedName;
+					attributes.remove(index);
+					insert(existingAttribute);
+				}
+			} else {
+				insert(new Attribute(namespace, localName, qualifiedName, value));
+			}
+		}
+
+		private void insert(Attribute attribute) {
+			int index = findByQualifiedName(attribute.qualifiedName);
+			attributes.add(index >= 0 ? index : -1 - index, attribute);
+		}
+
+		/**
+		 * @return The index of an attribute with the qualified name or -1 less
+		 *         the index it would be inserted at
+		 */
+		private int findByQualifiedName(String qualifiedName) {
+			int first = 0;
+			int last = attributes.size() - 1;
+			while (first <= last) {
+				int middle = (first + last) / 2;
+				int comparison = qualifiedName.compareTo(attributes.get(middle).qualifiedName);
+				if (comparison == 0) {
+					return middle;
+				} else if (comparison < 0) {
+					last = middle - 1;
+				} else {
+					first = middle + 1;
+				}
+			}
+			return -1 - first;
+		}
+
+		private int findByNamespace(String namespace, String localName) {
+			for (int i = 0; i < attributes.size(); i++) {
+				Attribute curAttribute = attributes.get(i);
+				if (namespace.equals(curAttribute.namespace) && localName.equals(curAttribute.localName)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private List<Attribute> getAttributes() {
+			return attributes;
+		}
+	}
+
+	/**
+	 * The namespace prefixes declared on an element and its ancestors.
+	 */
+	private static class NamespaceScope {
+		private final NamespaceScope parent;
+		private final Map<String, String> declarations = new HashMap<String, String>();
+
+		private NamespaceScope(NamespaceScope parent) {
+			this.parent = parent;
+			if (parent == null) {
+				declarations.put("", "");
+				declarations.put(XML_PREFIX, XML_NS_URI);
+			}
+		}
+
+		private String lookup(String prefix) {
+			for (NamespaceScope curScope = this; curScope != null; curScope = curScope.parent) {
+				String namespace = curScope.declarations.get(prefix);
+				if (namespace != null) {
+					return namespace;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Declares a prefix on this element unless it is already bound to the
+		 * namespace.
+		 *
+		 * @return true if the prefix was declared
+		 */
+		private boolean declare(String prefix, String namespace) {
+			if (prefix.startsWith(XML_PREFIX) || namespace.equals(lookup(prefix))) {
+				return false;
+			}
+			declarations.put(prefix, namespace);
+			return true;
+		}
+	}
+
+	/**
+	 * The namespace declarations and attributes written in the start tag of an
+	 * element, in the order they are written.
+	 */
+	private static class StartTag {
+		private final NamespaceScope scope;
+		private final List<Attribute> attributes = new ArrayList<Attribute>();
+
+		private StartTag(NamespaceScope scope) {
+			this.scope = scope;
+		}
+
+		private void addAttributes(ElementAttributes elementAttributes) {
+			List<Attribute> attributeList = elementAttributes.getAttributes();
+
+			for (Attribute curAttribute : attributeList) {
+				if (curAttribute.qualifiedName.startsWith(XMLNS_PREFIX)) {
+					int colon = curAttribute.qualifiedName.lastIndexOf(':');
+					declareNamespace(colon > 0 ? curAttribute.qualifiedName.substring(colon + 1) : "",
+						curAttribute.value);
+				}
+			}
+
+			int generatedPrefixCount = 0;
+
+			for (Attribute curAttribute : attributeList) {
+				if (!curAttribute.qualifiedName.startsWith(XMLNS_PREFIX)) {
+					if (StringUtils.isNotEmpty(curAttribute.namespace)) {
+						String generatedPrefix = GENERATED_PREFIX + generatedPrefixCount++;
+						String prefix = getPrefix(curAttribute.qualifiedName);
+						if (prefix.length() == 0) {
+							prefix = generatedPrefix;
+						}
+						declareNamespace(prefix, curAttribute.namespace);
+						addAttribute(prefix + ":" + curAttribute.qualifiedName, curAttribute.value);
+					} else {
+						addAttribute(curAttribute.qualifiedName, curAttribute.value);
+					}
+				}
+			}
+		}
+
+		private void declareNamespace(String prefix, String namespace) {
+			if (scope.declare(prefix, namespace)) {
+				if (prefix.length() == 0) {
+					putAttribute(XMLNS_PREFIX, namespace);
+				} else if (namespace.length() > 0) {
+					putAttribute(XMLNS_PREFIX + ":" + prefix, namespace);
+				}
+			}
+		}
+
+		/**
+		 * Adds an attribute, dropping a doubled prefix and the prefix of a name
+		 * whose prefix is bound to no namespace.
+		 */
+		private void addAttribute(String qualifiedName, String value) {
+			String name = qualifiedName;
+			int lastColon = name.lastIndexOf(':');
+			if (lastColon > 0) {
+				int firstColon = name.indexOf(':');
+				String namespace = scope.lookup(name.substring(0, firstColon));
+				if (namespace != null && namespace.length() == 0) {
+					name = name.substring(lastColon + 1);
+				} else if (firstColon != lastColon) {
+					name = name.substring(0, firstColon) + ":" + name.substring(lastColon + 1);
+				}
+			}
+
+			String prefix = getPrefix(name);
+			if (prefix.length() > 0 && scope.lookup(prefix) == null && !prefix.equals(XMLNS_PREFIX)) {
+				throw new IllegalArgumentException("Namespace for prefix '" + prefix + "' has not been declared.");
+			}
+
+			putAttribute(name, value);
+		}
+
+		private void putAttribute(String qualifiedName, String value) {
+			for (Attribute curAttribute : attributes) {
+				if (qualifiedName.equals(curAttribute.qualifiedName)) {
+					curAttribute.value = value;
+					return;
+				}
+			}
+			attributes.add(new Attribute(null, null, qualifiedName, value));
+		}
+
+		private void write(StringBuilder buffer) throws IOException {
+			for (Attribute curAttribute : attributes) {
+				buffer.append(' ');
+				buffer.append(curAttribute.qualifiedName);
+				buffer.append("=\"");
+				writeAttributeValue(curAttribute.value, buffer);
+				buffer.append('"');
+			}
+		}
+	}
 }
@@ -0,0 +1,136 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.citytechinc.cq.component.annotations.Component;
+
+public class AnnotationIndexCacheTest {
+
+	private static final String SOURCE = "file:/sample.jar";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File cacheDirectory;
+
+	private AnnotationIndexCache annotationIndexCache;
+
+	@Before
+	public void setUp() throws Exception {
+		cacheDirectory = new File(temporaryFolder.getRoot(), "cache");
+		annotationIndexCache = new AnnotationIndexCache(cacheDirectory);
+	}
+
+	@Test
+	public void testReadMissesUnknownChecksum() throws Exception {
+		AnnotationIndex annotationIndex = new AnnotationIndex();
+
+		assertFalse(annotationIndexCache.read("0123456789abcdef", SOURCE, annotationIndex));
+		assertTrue(annotationIndex.getClassNamesAnnotatedWith(Component.class).isEmpty());
+	}
+
+	@Test
+	public void testReadHitsWrittenIndex() throws Exception {
+		AnnotationIndex archiveIndex = new AnnotationIndex();
+		archiveIndex.addAnnotatedClass(Component.class.getName(), SampleComponent.class.getName(), SOURCE);
+		annotationIndexCache.write("0123456789abcdef", archiveIndex);
+
+		AnnotationIndex annotationIndex = new AnnotationIndex();
+
+		assertTrue(annotationIndexCache.read("0123456789abcdef", SOURCE, annotationIndex));
+		assertEquals(Collections.singleton(SampleComponent.class.getName()),
+			annotationIndex.getClassNamesAnnotatedWith(Component.class));
+	}
+
+	@Test
+	public void testReadMissesEntryOfOtherFormat() throws Exception {
+		FileUtils.writeStringToFile(new File(cacheDirectory, "0123456789abcdef.properties"),
+			Component.class.getName() + "=" + SampleComponent.class.getName() + "\n");
+
+		AnnotationIndex annotationIndex = new AnnotationIndex();
+
+		assertFalse(annotationIndexCache.read("0123456789abcdef", SOURCE, annotationIndex));
+		assertTrue(annotationIndex.getClassNamesAnnotatedWith(Component.class).isEmpty());
+	}
+
+	@Test
+	public void testBuildAnnotationIndexReusesCachedIndex() throws Exception {
+		File archive = writeSampleArchive();
+		URL archiveUrl = archive.toURI().toURL();
+
+		AnnotationIndex scannedIndex =
+			AnnotationIndexUtil.buildAnnotationIndex(Collections.singletonList(archiveUrl), annotationIndexCache);
+		assertEquals(Collections.singleton(SampleComponent.class.getName()),
+			scannedIndex.getClassNamesAnnotatedWith(Component.class));
+
+		AnnotationIndex cachedIndex = new AnnotationIndex();
+		assertTrue(annotationIndexCache.read(AnnotationIndexCache.getChecksum(archive),
+			archiveUrl.toExternalForm(), cachedIndex));
+		assertEquals(Collections.singleton(SampleComponent.class.getName()),
+			cachedIndex.getClassNamesAnnotatedWith(Component.class));
+	}
+
+	@Test
+	public void testBuildAnnotationIndexIgnoresFailedCacheWrite() throws Exception {
+		File archive = writeSampleArchive();
+		FileUtils.writeStringToFile(cacheDirectory, "not a directory");
+
+		AnnotationIndex annotationIndex =
+			AnnotationIndexUtil.buildAnnotationIndex(Collections.singletonList(archive.toURI().toURL()),
+				annotationIndexCache);
+
+		assertEquals(Collections.singleton(SampleComponent.class.getName()),
+			annotationIndex.getClassNamesAnnotatedWith(Component.class));
+	}
+
+	private File writeSampleArchive() throws IOException {
+		File archive = new File(temporaryFolder.getRoot(), "sample.jar");
+		String classFileName = SampleComponent.class.getName().replace('.', '/') + ".class";
+
+		ZipOutputStream archiveOutputStream = new ZipOutputStream(FileUtils.openOutputStream(archive));
+		InputStream classInputStream = getClass().getClassLoader().getResourceAsStream(classFileName);
+		try {
+			archiveOutputStream.putNextEntry(new ZipEntry(classFileName));
+			IOUtils.copy(classInputStream, archiveOutputStream);
+			archiveOutputStream.closeEntry();
+		} finally {
+			IOUtils.closeQuietly(classInputStream);
+			archiveOutputStream.close();
+		}
+
+		return archive;
+	}
+
+}
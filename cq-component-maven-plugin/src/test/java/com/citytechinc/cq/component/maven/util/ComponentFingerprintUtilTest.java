@@ -0,0 +1,159 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
+import com.citytechinc.cq.component.dialog.widget.WidgetRegistry;
+import com.citytechinc.cq.component.dialog.widget.impl.DefaultWidgetRegistry;
+import com.citytechinc.cq.component.editconfig.registry.DefaultInPlaceEditorRegistry;
+import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry;
+import com.citytechinc.cq.component.htl.util.HtlUtil;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.DefaultTouchUIWidgetRegistry;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.TouchUIWidgetRegistry;
+
+public class ComponentFingerprintUtilTest {
+
+	private static final String DEPENDENCY_CLASS_NAME = "com.example.Dependency";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File classesDirectory;
+
+	private ClassLoader classLoader;
+
+	private CtClass componentClass;
+
+	@Before
+	public void setUp() throws Exception {
+		classesDirectory = temporaryFolder.newFolder("classes");
+		classLoader = new URLClassLoader(new URL[] { classesDirectory.toURI().toURL() }, null);
+
+		writeClassFile(SampleComponent.class.getName(), getClassBytes(SampleComponent.class));
+		writeClassFile(DEPENDENCY_CLASS_NAME, new byte[] { 1, 2, 3 });
+
+		ClassPool classPool = ComponentMojoUtil.getClassPool(getClass().getClassLoader());
+		componentClass = classPool.getCtClass(SampleComponent.class.getName());
+	}
+
+	@Test
+	public void testComponentFingerprintIsStable() throws Exception {
+		assertEquals(getComponentFingerprint(), getComponentFingerprint());
+	}
+
+	@Test
+	public void testComponentFingerprintChangesWithComponentClass() throws Exception {
+		String fingerprint = getComponentFingerprint();
+
+		byte[] classBytes = getClassBytes(SampleComponent.class);
+		writeClassFile(SampleComponent.class.getName(), Arrays.copyOf(classBytes, classBytes.length + 1));
+
+		assertFalse(fingerprint.equals(getComponentFingerprint()));
+	}
+
+	@Test
+	public void testComponentFingerprintChangesWithDependency() throws Exception {
+		String fingerprint = getComponentFingerprint();
+
+		writeClassFile(DEPENDENCY_CLASS_NAME, new byte[] { 1, 2, 4 });
+
+		assertFalse(fingerprint.equals(getComponentFingerprint()));
+	}
+
+	@Test
+	public void testComponentFingerprintOfMissingDependency() throws Exception {
+		new File(classesDirectory, DEPENDENCY_CLASS_NAME.replace('.', '/') + ".class").delete();
+
+		assertNull(getComponentFingerprint());
+	}
+
+	@Test
+	public void testConfigurationFingerprintChangesWithTemplate() throws Exception {
+		File buildDirectory = new File(temporaryFolder.newFolder("project"), "target");
+		File template = new File(HtlUtil.getTemplateDirectory(buildDirectory), "default.vm");
+		FileUtils.writeStringToFile(template, "<div></div>");
+
+		String fingerprint = getConfigurationFingerprint(buildDirectory, true);
+		assertNotNull(fingerprint);
+		assertEquals(fingerprint, getConfigurationFingerprint(buildDirectory, true));
+		assertFalse(fingerprint.equals(getConfigurationFingerprint(buildDirectory, false)));
+
+		FileUtils.writeStringToFile(template, "<span></span>");
+
+		assertFalse(fingerprint.equals(getConfigurationFingerprint(buildDirectory, true)));
+	}
+
+	private String getComponentFingerprint() throws IOException {
+		Set<String> dependencies = Collections.singleton(DEPENDENCY_CLASS_NAME);
+
+		return ComponentFingerprintUtil.getComponentFingerprint(componentClass, dependencies, classLoader);
+	}
+
+	private String getConfigurationFingerprint(File buildDirectory, boolean generateTouchUiDialogs)
+		throws Exception {
+		ClassLoader pluginClassLoader = getClass().getClassLoader();
+		ClassPool classPool = ComponentMojoUtil.getClassPool(pluginClassLoader);
+		URL pluginClasspathUrl = ComponentMojoUtil.getPluginClasspathUrl();
+		AnnotationIndex annotationIndex =
+			AnnotationIndexUtil.buildAnnotationIndex(Collections.singletonList(pluginClasspathUrl));
+
+		WidgetRegistry widgetRegistry =
+			new DefaultWidgetRegistry(classPool, pluginClassLoader, annotationIndex, new ArrayList<String>());
+		TouchUIWidgetRegistry touchUIWidgetRegistry =
+			new DefaultTouchUIWidgetRegistry(classPool, pluginClassLoader, annotationIndex, new ArrayList<String>());
+		InPlaceEditorRegistry inPlaceEditorRegistry =
+			new DefaultInPlaceEditorRegistry(classPool, pluginClassLoader, annotationIndex);
+		ComponentNameTransformer transformer =
+			ComponentMojoUtil.getTransformer(classPool, annotationIndex, "camel-case");
+
+		return ComponentFingerprintUtil.getConfigurationFingerprint(widgetRegistry, touchUIWidgetRegistry,
+			inPlaceEditorRegistry, pluginClassLoader, buildDirectory, "jcr_root/apps/sample/components", "content",
+			"Components", transformer, generateTouchUiDialogs, true);
+	}
+
+	private void writeClassFile(String className, byte[] classBytes) throws IOException {
+		FileUtils.writeByteArrayToFile(new File(classesDirectory, className.replace('.', '/') + ".class"), classBytes);
+	}
+
+	private static byte[] getClassBytes(Class<?> clazz) throws IOException {
+		return IOUtils.toByteArray(clazz.getResourceAsStream(clazz.getSimpleName() + ".class"));
+	}
+
+}
@@ -0,0 +1,190 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.citytechinc.cq.component.dialog.ComponentNameTransformer;
+import com.citytechinc.cq.component.dialog.widget.WidgetRegistry;
+import com.citytechinc.cq.component.dialog.widget.impl.DefaultWidgetRegistry;
+import com.citytechinc.cq.component.editconfig.registry.DefaultInPlaceEditorRegistry;
+import com.citytechinc.cq.component.editconfig.registry.InPlaceEditorRegistry;
+import com.citytechinc.cq.component.htl.util.HtlUtil;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.DefaultTouchUIWidgetRegistry;
+import com.citytechinc.cq.component.touchuidialog.widget.registry.TouchUIWidgetRegistry;
+
+public class ComponentMojoUtilTest {
+
+	private static final String COMPONENT_PATH_BASE = "jcr_root/apps/sample/components";
+
+	private static final long PACKAGE_ENTRY_TIME = 1500000000000L;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File buildDirectory;
+
+	private File contentDirectory;
+
+	private File archiveFile;
+
+	private ClassLoader classLoader;
+
+	private ClassPool classPool;
+
+	private List<CtClass> classList;
+
+	private WidgetRegistry widgetRegistry;
+
+	private TouchUIWidgetRegistry touchUIWidgetRegistry;
+
+	private InPlaceEditorRegistry inPlaceEditorRegistry;
+
+	private ComponentNameTransformer transformer;
+
+	@Before
+	public void setUp() throws Exception {
+		File projectDirectory = temporaryFolder.newFolder("project");
+		buildDirectory = new File(projectDirectory, "target");
+		contentDirectory = new File(projectDirectory, "content");
+		archiveFile = new File(buildDirectory, "sample.zip");
+
+		File templateDirectory = HtlUtil.getTemplateDirectory(buildDirectory);
+		FileUtils.writeStringToFile(new File(templateDirectory, "default.vm"), "<div>${modelname}</div>");
+
+		classLoader = getClass().getClassLoader();
+		classPool = ComponentMojoUtil.getClassPool(classLoader);
+
+		URL testClassesUrl = SampleComponent.class.getProtectionDomain().getCodeSource().getLocation();
+		AnnotationIndex annotationIndex =
+			AnnotationIndexUtil.buildAnnotationIndex(Arrays.asList(testClassesUrl,
+				ComponentMojoUtil.getPluginClasspathUrl()));
+
+		classList = Collections.singletonList(classPool.getCtClass(SampleComponent.class.getName()));
+		widgetRegistry = new DefaultWidgetRegistry(classPool, classLoader, annotationIndex, new ArrayList<String>());
+		touchUIWidgetRegistry =
+			new DefaultTouchUIWidgetRegistry(classPool, classLoader, annotationIndex, new ArrayList<String>());
+		inPlaceEditorRegistry = new DefaultInPlaceEditorRegistry(classPool, classLoader, annotationIndex);
+		transformer = ComponentMojoUtil.getTransformer(classPool, annotationIndex, "camel-case");
+	}
+
+	@Test
+	public void testComponentGoalKeepsFilesOfComponentContentGoal() throws Exception {
+		buildContentTree();
+
+		Collection<File> contentFiles = FileUtils.listFiles(contentDirectory, null, true);
+		assertFalse(contentFiles.isEmpty());
+
+		buildArchive(false);
+		buildArchive(false);
+
+		for (File curContentFile : contentFiles) {
+			assertTrue(curContentFile + " was removed", curContentFile.isFile());
+		}
+	}
+
+	@Test
+	public void testComponentGoalRemovesOwnExplodedFilesOnceDisabled() throws Exception {
+		buildContentTree();
+		buildArchive(true);
+
+		File temporaryOutputDirectory = ComponentMojoUtil.getTemporaryOutputDirectory(buildDirectory);
+		Collection<File> explodedFiles = FileUtils.listFiles(temporaryOutputDirectory, null, true);
+		assertFalse(explodedFiles.isEmpty());
+
+		buildArchive(false);
+
+		for (File curExplodedFile : explodedFiles) {
+			assertFalse(curExplodedFile + " was kept", curExplodedFile.exists());
+		}
+		assertFalse(FileUtils.listFiles(contentDirectory, null, true).isEmpty());
+	}
+
+	@Test
+	public void testParallelCompressionWritesSameArchive() throws Exception {
+		buildArchive(false, false);
+		byte[] serialArchive = FileUtils.readFileToByteArray(archiveFile);
+
+		/*
+		 * Generate every file again rather than reusing the files of the
+		 * previous build, a little later than the first build
+		 */
+		archiveFile.delete();
+		FileUtils.deleteDirectory(new File(buildDirectory, ComponentBuildState.STATE_DIRECTORY_NAME));
+		Thread.sleep(2000);
+
+		buildArchive(false, true);
+		byte[] parallelArchive = FileUtils.readFileToByteArray(archiveFile);
+
+		assertArrayEquals(serialArchive, parallelArchive);
+	}
+
+	private void buildContentTree() throws Exception {
+		ComponentMojoUtil.buildContentTreeForProjectAndClassList(classList, widgetRegistry, touchUIWidgetRegistry,
+			inPlaceEditorRegistry, classLoader, classPool, buildDirectory, contentDirectory, COMPONENT_PATH_BASE,
+			"content", "Components", transformer, true, true);
+	}
+
+	private void buildArchive(boolean writeExplodedComponentFiles) throws Exception {
+		buildArchive(writeExplodedComponentFiles, false);
+	}
+
+	private void buildArchive(boolean writeExplodedComponentFiles, boolean parallelCompression) throws Exception {
+		if (!archiveFile.exists()) {
+			writeEmptyPackage(archiveFile);
+		}
+
+		ComponentMojoUtil.buildArchiveFileForProjectAndClassList(classList, widgetRegistry, touchUIWidgetRegistry,
+			inPlaceEditorRegistry, classLoader, classPool, buildDirectory, COMPONENT_PATH_BASE, "content",
+			"Components", archiveFile, new File(buildDirectory, "sample-temp.zip"), archiveFile, transformer, true,
+			true, writeExplodedComponentFiles, parallelCompression, ArchiveCompression.forName(ArchiveCompression.KEEP));
+	}
+
+	private static void writeEmptyPackage(File packageFile) throws IOException {
+		ZipOutputStream packageOutputStream = new ZipOutputStream(FileUtils.openOutputStream(packageFile));
+		try {
+			ZipEntry propertiesEntry = new ZipEntry("META-INF/vault/properties.xml");
+			propertiesEntry.setTime(PACKAGE_ENTRY_TIME);
+			packageOutputStream.putNextEntry(propertiesEntry);
+			packageOutputStream.closeEntry();
+		} finally {
+			packageOutputStream.close();
+		}
+	}
+
+}
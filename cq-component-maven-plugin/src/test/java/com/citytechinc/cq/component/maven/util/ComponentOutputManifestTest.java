@@ -0,0 +1,115 @@
+/**
+ *    Copyright 2017 ICF Olson
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.citytechinc.cq.component.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ComponentOutputManifestTest {
+
+	private static final String FIRST_COMPONENT = "com.example.First";
+
+	private static final String SECOND_COMPONENT = "com.example.Second";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testNoStaleOutputsForSameOutputs() {
+		ComponentOutputManifest previousManifest = new ComponentOutputManifest();
+		previousManifest.addOutput(FIRST_COMPONENT, new File("first/.content.xml"));
+
+		ComponentOutputManifest currentManifest = new ComponentOutputManifest();
+		currentManifest.addOutput(FIRST_COMPONENT, new File("first/.content.xml"));
+
+		assertTrue(previousManifest.getStaleOutputs(currentManifest).isEmpty());
+	}
+
+	@Test
+	public void testOutputsOfRemovedComponentAreStale() {
+		ComponentOutputManifest previousManifest = new ComponentOutputManifest();
+		previousManifest.addOutput(FIRST_COMPONENT, new File("first/.content.xml"));
+		previousManifest.addOutput(SECOND_COMPONENT, new File("second/.content.xml"));
+		previousManifest.addOutput(SECOND_COMPONENT, new File("second/dialog.xml"));
+
+		ComponentOutputManifest currentManifest = new ComponentOutputManifest();
+		currentManifest.addOutput(FIRST_COMPONENT, new File("first/.content.xml"));
+
+		assertEquals(
+			new HashSet<String>(Arrays.asList(new File("second/.content.xml").getAbsolutePath(), new File(
+				"second/dialog.xml").getAbsolutePath())), previousManifest.getStaleOutputs(currentManifest));
+	}
+
+	@Test
+	public void testOutputsNoLongerGeneratedAreStale() {
+		ComponentOutputManifest previousManifest = new ComponentOutputManifest();
+		previousManifest.addOutput(FIRST_COMPONENT, new File("first/.content.xml"));
+		previousManifest.addOutput(FIRST_COMPONENT, new File("first/dialog.xml"));
+
+		ComponentOutputManifest currentManifest = new ComponentOutputManifest();
+		currentManifest.addOutput(FIRST_COMPONENT, new File("first/.content.xml"));
+
+		assertEquals(Collections.singleton(new File("first/dialog.xml").getAbsolutePath()),
+			previousManifest.getStaleOutputs(currentManifest));
+	}
+
+	@Test
+	public void testOutputMovedToOtherComponentIsNotStale() {
+		ComponentOutputManifest previousManifest = new ComponentOutputManifest();
+		previousManifest.addOutput(FIRST_COMPONENT, new File("shared/.content.xml"));
+
+		ComponentOutputManifest currentManifest = new ComponentOutputManifest();
+		currentManifest.addOutput(SECOND_COMPONENT, new File("shared/.content.xml"));
+
+		assertTrue(previousManifest.getStaleOutputs(currentManifest).isEmpty());
+	}
+
+	@Test
+	public void testReadWrittenManifest() throws Exception {
+		File outputDirectory = temporaryFolder.newFolder("output dir");
+
+		ComponentOutputManifest manifest = new ComponentOutputManifest();
+		manifest.addOutput(FIRST_COMPONENT, new File(outputDirectory, "first/.content.xml"));
+		manifest.addOutput(FIRST_COMPONENT, new File(outputDirectory, "first/dialog.xml"));
+		manifest.addOutput(SECOND_COMPONENT, new File(outputDirectory, "second/.content.xml"));
+
+		File manifestFile = new File(temporaryFolder.getRoot(), ComponentOutputManifest.MANIFEST_FILE_NAME);
+		manifest.write(manifestFile);
+
+		ComponentOutputManifest readManifest = ComponentOutputManifest.read(manifestFile);
+
+		assertEquals(manifest.getComponentClassNames(), readManifest.getComponentClassNames());
+		assertEquals(manifest.getOutputs(FIRST_COMPONENT), readManifest.getOutputs(FIRST_COMPONENT));
+		assertEquals(manifest.getOutputs(SECOND_COMPONENT), readManifest.getOutputs(SECOND_COMPONENT));
+		assertTrue(manifest.getStaleOutputs(readManifest).isEmpty());
+	}
+
+	@Test
+	public void testReadMissingManifest() throws Exception {
+		assertNull(ComponentOutputManifest.read(new File(temporaryFolder.getRoot(), "missing.properties")));
+	}
+
+}